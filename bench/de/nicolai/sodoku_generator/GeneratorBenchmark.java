@@ -0,0 +1,171 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures generating complete sodokus, transforming them, computing their canonical form,
+ * drawing the fitting lines of the line sampler, creating minimal puzzles
+ * and checking puzzles for a unique solution, in one thread and split over the common pool.
+ * @author Nicolai
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+	/**
+	 * Generator using the backtracking engine.
+	 */
+	private final SodokuGenerator backtracking = new SodokuGenerator(BacktrackingEngine::new);
+	/**
+	 * Generator using the line sampling engine.
+	 */
+	private final SodokuGenerator lineSampling = new SodokuGenerator(LineSamplingEngine::new);
+	/**
+	 * Transforms the base sodoku.
+	 */
+	private final GridTransformer transformer = new GridTransformer();
+	/**
+	 * The sodoku to transform.
+	 */
+	private final Grid base = backtracking.getSodoku().getGridCopy();
+	/**
+	 * The grid the transforms are written to.
+	 */
+	private final Grid transformed = new Grid();
+	/**
+	 * Computes the canonical form of the transforms.
+	 */
+	private final CanonicalForm canonicalForm = new CanonicalForm();
+	/**
+	 * Chooses the transforms.
+	 */
+	private final SplittableRandom random = new SplittableRandom();
+	/**
+	 * Engine drawing the lines.
+	 */
+	private final LineSamplingEngine lineSampler = new LineSamplingEngine();
+	/**
+	 * The first band of the base sodoku, the next line is drawn for.
+	 */
+	private final Grid firstBand = new Grid();
+	/**
+	 * Buffer for the drawn lines.
+	 */
+	private final String[] line = new String[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Solves the puzzle.
+	 */
+	private final DancingLinks solver = new DancingLinks();
+	/**
+	 * A puzzle out of the base sodoku, no field can be removed from without losing the unique solution.
+	 */
+	private final Grid puzzle = new SolvableSodoku(new Sodoku(base), 100, true, random).getGivenGrid();
+	/**
+	 * Solves the puzzle with all threads of the common pool.
+	 */
+	private final ParallelSolutionCounter parallelSolver = new ParallelSolutionCounter();
+
+	/**
+	 * Copies the first band of the base sodoku.
+	 */
+	public GeneratorBenchmark() {
+		for (int i = 0; i < SodokuGenerator.SQUARE_STEPS; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				firstBand.set(i, j, base.get(i, j));
+	}
+
+	/**
+	 * Generates a sodoku with the backtracking engine.
+	 * @return the generated sodoku
+	 */
+	@Benchmark
+	public Sodoku backtrackingEngine() {
+		return backtracking.getSodoku();
+	}
+
+	/**
+	 * Generates a sodoku with the line sampling engine.
+	 * @return the generated sodoku
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Sodoku lineSamplingEngine() {
+		return lineSampling.getSodoku();
+	}
+
+	/**
+	 * Creates a random transform of a searched sodoku.
+	 * @return the transformed grid
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Grid transform() {
+		transformer.transform(base, random, transformed);
+		return transformed;
+	}
+
+	/**
+	 * Computes the key of the canonical form of a transformed sodoku.
+	 * @return the first half of the key
+	 */
+	@Benchmark
+	public long canonicalForm() {
+		transformer.transform(base, random, transformed);
+		canonicalForm.canonicalize(transformed);
+		return canonicalForm.getKeyHigh();
+	}
+
+	/**
+	 * Counts the lines fitting below the first band and draws one of them.
+	 * @return the drawn line
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public String[] sampleLine() {
+		lineSampler.sampleLine(firstBand, SodokuGenerator.SQUARE_STEPS, random, line);
+		return line;
+	}
+
+	/**
+	 * Checks if a puzzle with as few given elements as possible has a unique solution.
+	 * @return true, if the solution is unique
+	 */
+	@Benchmark
+	public boolean dancingLinks() {
+		return solver.hasUniqueSolution(puzzle);
+	}
+
+	/**
+	 * Creates a minimal puzzle out of the base sodoku, with the fewest given elements of all attempts.
+	 * @return the puzzle
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SolvableSodoku minimalPuzzle() {
+		return SolvableSodoku.createMinimal(new Sodoku(base), random);
+	}
+
+	/**
+	 * Checks the same puzzle with the search tree split over the threads of the common pool.
+	 * @return true, if the solution is unique
+	 */
+	@Benchmark
+	public boolean parallelSolutionCounter() {
+		return parallelSolver.hasUniqueSolution(puzzle);
+	}
+}
@@ -0,0 +1,86 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding lines to a sodoku and validating it.
+ * @author Nicolai
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SodokuBenchmark {
+	/**
+	 * The lines of a complete sodoku.
+	 */
+	private String[][] lines;
+	/**
+	 * A line, which breaks the rules in the second line of the sodoku.
+	 */
+	private String[] wrongLine;
+	/**
+	 * The sodoku the lines are added to.
+	 */
+	private final Sodoku sodoku = new Sodoku();
+	/**
+	 * A complete sodoku.
+	 */
+	private Sodoku complete;
+
+	/**
+	 * Generates the sodoku to take the lines from.
+	 */
+	@Setup
+	public void setup() {
+		complete = new SodokuGenerator().getSodoku();
+		lines = complete.getContentCopy();
+		wrongLine = lines[0];
+	}
+
+	/**
+	 * Adds all lines of a complete sodoku to an empty one.
+	 * @return the filled sodoku
+	 */
+	@Benchmark
+	public Sodoku addLines() {
+		sodoku.reset();
+		for (final String[] line:lines)
+			sodoku.addLine(line);
+		return sodoku;
+	}
+
+	/**
+	 * Tries to add a line, which is rejected.
+	 * @return false, since the line can't be added
+	 */
+	@Benchmark
+	public boolean rejectLine() {
+		sodoku.reset();
+		sodoku.addLine(lines[0]);
+		return sodoku.addLine(wrongLine);
+	}
+
+	/**
+	 * Validates a complete sodoku.
+	 * @return true, since the sodoku is valid
+	 */
+	@Benchmark
+	public boolean test() {
+		return complete.testLines() && complete.test();
+	}
+}
@@ -0,0 +1,80 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating solvable sodokus and checking if they are solved.
+ * @author Nicolai
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolvableSodokuBenchmark {
+	/**
+	 * Probability of a field to be empty.
+	 */
+	private static final double EMPTY_PROBABILITY = 60.0;
+	/**
+	 * A complete sodoku, the solvable ones are created from.
+	 */
+	private Sodoku complete;
+	/**
+	 * A solvable sodoku with all fields filled correctly.
+	 */
+	private SolvableSodoku solved;
+
+	/**
+	 * Generates the sodokus.
+	 */
+	@Setup
+	public void setup() {
+		complete = new SodokuGenerator().getSodoku();
+		solved = new SolvableSodoku(complete, EMPTY_PROBABILITY);
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				solved.trySetValue(i, j, solved.getSolution(i, j));
+	}
+
+	/**
+	 * Checks if a correctly filled sodoku is solved.
+	 * @return true, since the sodoku is solved
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean isSolved() {
+		return solved.isSolved();
+	}
+
+	/**
+	 * Creates a solvable sodoku by removing random fields.
+	 * @return the created sodoku
+	 */
+	@Benchmark
+	public SolvableSodoku randomFields() {
+		return new SolvableSodoku(complete, EMPTY_PROBABILITY);
+	}
+
+	/**
+	 * Creates a solvable sodoku with a unique solution.
+	 * @return the created sodoku
+	 */
+	@Benchmark
+	public SolvableSodoku uniqueSolution() {
+		return new SolvableSodoku(complete, EMPTY_PROBABILITY, true);
+	}
+}
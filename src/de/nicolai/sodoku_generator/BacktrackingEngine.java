@@ -0,0 +1,205 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates sodokus by filling them field by field.
+ * The candidates of every field are kept as bitmasks,
+ * the field with the fewest candidates is filled next
+ * and dead ends are left by backtracking.
+ * Sodokus bigger than 9x9 start with the squares on the diagonal filled by shuffling,
+ * as they don't share a line or row.
+ * @author Nicolai
+ *
+ */
+public class BacktrackingEngine implements GridEngine {
+
+	// Constants
+
+	/**
+	 * Max count of placed elements, before the search is started again.
+	 * Bounds the time spent for a single sodoku.
+	 */
+	private static final int MAX_STEPS = 2_000;
+	/**
+	 * Max count of placed elements per field of big sodokus, before the search is started again.
+	 */
+	private static final int MAX_STEPS_PER_FIELD = 20;
+
+	// Attributes
+
+	/**
+	 * The fields filled so far.
+	 */
+	private final Grid grid;
+	/**
+	 * Count of fields per line of the grid.
+	 */
+	private final int length;
+	/**
+	 * Count of fields of the grid.
+	 */
+	private final int fieldCount;
+	/**
+	 * Shuffled candidates for every search depth, reused to avoid allocations.
+	 */
+	private final int[][] candidates;
+	/**
+	 * Max count of placed elements in a search.
+	 */
+	private final int maxSteps;
+	/**
+	 * Count of placed elements in the current search.
+	 */
+	private int steps;
+	/**
+	 * Used to shuffle the candidates of a field, during the current search.
+	 */
+	private SplittableRandom rand;
+	/**
+	 * Counts the restarted searches.
+	 */
+	private final GeneratorStats stats = GeneratorStats.get();
+
+	// Constructor
+
+	/**
+	 * Creates an engine for sodokus with 9x9 fields.
+	 */
+	public BacktrackingEngine() {
+		this(SodokuGenerator.SQUARE_STEPS);
+	}
+
+	/**
+	 * Creates an engine for sodokus of the passed size.
+	 * @param squareSize count of lines (and rows) of a square
+	 * @throws IllegalArgumentException if the size isn't supported
+	 */
+	public BacktrackingEngine(final int squareSize) {
+		super();
+		grid = new Grid(squareSize);
+		length = grid.getLength();
+		fieldCount = length * length;
+		candidates = new int[fieldCount][length];
+		maxSteps = Math.max(MAX_STEPS, fieldCount * MAX_STEPS_PER_FIELD);
+	}
+
+	// Methods
+
+	/**
+	 * Generates a new sodoku with 9x9 fields.
+	 * @param random used to shuffle the candidates
+	 * @return the generated sodoku
+	 * @throws IllegalArgumentException if the engine creates sodokus of another size
+	 */
+	@Override
+	public Sodoku generate(final SplittableRandom random) {
+		generateGrid(random);
+		return toSodoku();
+	}
+
+	/**
+	 * Generates a new sodoku of the size of the engine.
+	 * @param random used to shuffle the candidates
+	 * @return the generated sodoku
+	 */
+	public Grid generateGrid(final SplittableRandom random) {
+		rand = random;
+		clear();
+		while (!fill(grid.getFilledCount())) { // restart, if the search took too long
+			stats.addReset();
+			clear();
+		}
+		return new Grid(grid);
+	}
+
+	/**
+	 * Removes all elements of the last search and fills the squares on the diagonal of big sodokus.
+	 */
+	private void clear() {
+		steps = 0;
+		grid.clear();
+		final int squareSize = grid.getSquareSize();
+		if (squareSize <= SodokuGenerator.SQUARE_STEPS)
+			return;
+		final int[] order = candidates[0];
+		for (int square = 0; square < squareSize; square++) {
+			final int count = shuffleCandidates((int) ((1L << length) - 1), order);
+			for (int i = 0; i < count; i++)
+				grid.set(square * squareSize + i / squareSize, square * squareSize + i % squareSize, order[i]);
+		}
+	}
+
+	/**
+	 * Fills the remaining empty fields recursively.
+	 * @param depth count of already filled fields
+	 * @return true, if all fields could be filled
+	 */
+	private boolean fill(final int depth) {
+		if (depth == fieldCount)
+			return true;
+		if (++steps > maxSteps)
+			return false;
+
+		final int field = getMostConstrainedField();
+		final int line = field / length;
+		final int row = field % length;
+		final int[] order = candidates[depth];
+		final int count = shuffleCandidates(grid.getCandidates(line, row), order);
+		for (int i = 0; i < count; i++) {
+			grid.set(line, row, order[i]);
+			if (fill(depth + 1))
+				return true;
+			grid.remove(line, row);
+		}
+		return false;
+	}
+
+	/**
+	 * Searches the empty field with the fewest candidates.
+	 * @return the index of the field
+	 */
+	private int getMostConstrainedField() {
+		int best = -1;
+		int bestCount = Integer.MAX_VALUE;
+		for (int i = 0; i < fieldCount && bestCount > 1; i++) {
+			final int line = i / length;
+			final int row = i % length;
+			if (grid.get(line, row) == Grid.EMPTY) {
+				final int count = Integer.bitCount(grid.getCandidates(line, row));
+				if (count < bestCount) {
+					best = i;
+					bestCount = count;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Writes the candidates of the passed bitmask in random order to order.
+	 * @param mask the candidates as bitmask
+	 * @param order array to write the candidates (1 - length) to
+	 * @return the count of candidates
+	 */
+	private int shuffleCandidates(final int mask, final int... order) {
+		int count = 0;
+		for (int rest = mask; rest != 0; rest &= rest - 1)
+			order[count++] = Integer.numberOfTrailingZeros(rest) + 1;
+		for (int i = count - 1; i > 0; i--) {
+			final int j = rand.nextInt(i + 1);
+			final int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+		return count;
+	}
+
+	/**
+	 * Creates a sodoku containing the filled fields.
+	 * @return the created sodoku
+	 */
+	private Sodoku toSodoku() {
+		return new Sodoku(grid);
+	}
+}
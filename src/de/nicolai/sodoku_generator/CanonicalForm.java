@@ -0,0 +1,394 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Maps a sodoku to the smallest of all sodokus equal to it up to symmetry,
+ * so equal sodokus get the same 128 bit key.
+ * The smallest one is searched over transposing, relabeling the elements,
+ * swapping lines inside their band, swapping the bands and the same for rows and stacks,
+ * comparing the elements line by line.
+ * The elements are relabeled, so the first line is always 1 to 9,
+ * which leaves choosing the first line and the order of the rows to search.
+ * The other lines only need to be sorted then.
+ * The order of the rows is chosen row by row, skipping every partial order,
+ * which can't lead to a second line as small as the one of the smallest sodoku so far.
+ * Puzzles are mapped by their solution first, the given fields decide between
+ * the orders leading to the same smallest solution.
+ * @author Nicolai
+ *
+ */
+public class CanonicalForm {
+
+	// Constants
+
+	/**
+	 * Seed of the first half of the key.
+	 */
+	private static final long HIGH_SEED = 0x5344_4B42_4849_4748L;
+	/**
+	 * Seed of the second half of the key.
+	 */
+	private static final long LOW_SEED = 0x5344_4B42_4C4F_5757L;
+
+	// Attributes
+
+	/**
+	 * The elements of the solution, index 1 transposed.
+	 */
+	private final byte[][] solution = new byte[2][Grid.FIELD_COUNT];
+	/**
+	 * The elements of the given fields, index 1 transposed.
+	 */
+	private final byte[][] given = new byte[2][Grid.FIELD_COUNT];
+	/**
+	 * Whether given fields are compared.
+	 */
+	private boolean puzzle;
+	/**
+	 * The smallest solution found so far.
+	 */
+	private final byte[] best = new byte[Grid.FIELD_COUNT];
+	/**
+	 * The given fields of the smallest puzzle found so far, 1 for given.
+	 */
+	private final byte[] bestGiven = new byte[Grid.FIELD_COUNT];
+	/**
+	 * Whether best contains a solution.
+	 */
+	private boolean found;
+	/**
+	 * The solution currently compared with best.
+	 */
+	private final byte[] candidate = new byte[Grid.FIELD_COUNT];
+	/**
+	 * The given fields currently compared with bestGiven.
+	 */
+	private final byte[] candidateGiven = new byte[Grid.FIELD_COUNT];
+	/**
+	 * Original row of the first line, containing every element.
+	 */
+	private final int[] topRows = new int[SodokuGenerator.LINE_LENGTH + 1];
+	/**
+	 * Row of the first line, containing the element of the second line in this row.
+	 */
+	private final int[] secondLine = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Row of the first line, containing the element of the third line in this row.
+	 */
+	private final int[] thirdLine = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Original row of every row, chosen so far.
+	 */
+	private final int[] order = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * New row of every original row, -1 if not chosen yet.
+	 */
+	private final int[] inverse = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * New stack of every original stack, -1 if not chosen yet.
+	 */
+	private final int[] stacks = new int[SodokuGenerator.SQUARE_STEPS];
+	/**
+	 * The elements, maybe transposed, of the current search.
+	 */
+	private byte[] cells;
+	/**
+	 * The given fields, maybe transposed, of the current search.
+	 */
+	private byte[] givenCells;
+	/**
+	 * The original line used as first line in the current search.
+	 */
+	private int top;
+	/**
+	 * New label of every element (index 0 stays empty).
+	 */
+	private final byte[] labels = new byte[SodokuGenerator.LINE_LENGTH + 1];
+	/**
+	 * Original line of every line of the candidate.
+	 */
+	private final int[] lineOrder = new int[SodokuGenerator.LINE_COUNT];
+	/**
+	 * The first half of the key.
+	 */
+	private long keyHigh;
+	/**
+	 * The second half of the key.
+	 */
+	private long keyLow;
+
+	// Methods
+
+	/**
+	 * Maps a complete sodoku to its smallest equal one and computes its key.
+	 * @param sodoku the complete sodoku
+	 */
+	public void canonicalize(final Grid sodoku) {
+		canonicalize(sodoku, null);
+	}
+
+	/**
+	 * Maps a sodoku to its smallest equal one and computes its key.
+	 * @param sodoku the complete solution
+	 * @param givenFields the given fields of the puzzle, null for complete sodokus
+	 */
+	public void canonicalize(final Grid sodoku, final Grid givenFields) {
+		puzzle = givenFields != null;
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				solution[0][i * SodokuGenerator.LINE_LENGTH + j] = sodoku.get(i, j);
+				solution[1][j * SodokuGenerator.LINE_LENGTH + i] = sodoku.get(i, j);
+				if (puzzle) {
+					given[0][i * SodokuGenerator.LINE_LENGTH + j] = givenFields.get(i, j);
+					given[1][j * SodokuGenerator.LINE_LENGTH + i] = givenFields.get(i, j);
+				}
+			}
+
+		found = false;
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			inverse[i] = -1;
+		for (int i = 0; i < SodokuGenerator.SQUARE_STEPS; i++)
+			stacks[i] = -1;
+		for (int t = 0; t < 2; t++) {
+			cells = solution[t];
+			givenCells = given[t];
+			for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+				searchTop(line);
+		}
+		computeKey();
+	}
+
+	/**
+	 * Searches the smallest sodoku starting with the passed line.
+	 * @param topLine the original line used as first line
+	 */
+	private void searchTop(final int topLine) {
+		top = topLine;
+		final int bandStart = top - top % SodokuGenerator.SQUARE_STEPS;
+		final int second = top == bandStart ? bandStart + 1 : bandStart;
+		final int third = top == bandStart + 2 ? bandStart + 1 : bandStart + 2;
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+			topRows[cells[top * SodokuGenerator.LINE_LENGTH + j]] = j;
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+			secondLine[j] = topRows[cells[second * SodokuGenerator.LINE_LENGTH + j]];
+			thirdLine[j] = topRows[cells[third * SodokuGenerator.LINE_LENGTH + j]];
+		}
+		searchRow(0);
+	}
+
+	/**
+	 * Chooses the original row of the passed row and the ones after it recursively.
+	 * @param row the row to choose
+	 */
+	private void searchRow(final int row) {
+		if (row == SodokuGenerator.LINE_LENGTH) {
+			for (int v = 1; v <= SodokuGenerator.LINE_LENGTH; v++)
+				labels[v] = (byte) (inverse[topRows[v]] + 1);
+			sortLines();
+			compareCandidate();
+			return;
+		}
+		final int steps = SodokuGenerator.SQUARE_STEPS;
+		final boolean newStack = row % steps == 0;
+		for (int stack = 0; stack < steps; stack++) {
+			if (newStack ? stacks[stack] >= 0 : stacks[stack] != row / steps)
+				continue;
+			stacks[stack] = row / steps;
+			for (int original = stack * steps; original < stack * steps + steps; original++)
+				if (inverse[original] < 0) {
+					order[row] = original;
+					inverse[original] = row;
+					if (!found || bound(secondLine, row) <= 0 || bound(thirdLine, row) <= 0)
+						searchRow(row + 1);
+					inverse[original] = -1;
+				}
+			if (newStack)
+				stacks[stack] = -1;
+		}
+	}
+
+	/**
+	 * Compares a line of the first band with the second line of best,
+	 * as far as the rows chosen so far decide it.
+	 * Elements not labeled yet get the smallest label they could get.
+	 * @param line row of the first line, containing the element of the line in every row
+	 * @param last the last chosen row
+	 * @return negative or positive, if the line will be smaller or bigger, zero if undecided
+	 */
+	private int bound(final int[] line, final int last) {
+		for (int j = 0; j <= last; j++) {
+			final int original = line[order[j]];
+			final int label;
+			if (inverse[original] >= 0)
+				label = inverse[original] + 1;
+			else if (stacks[original / SodokuGenerator.SQUARE_STEPS] >= 0)
+				label = last + 2; // next row of the current stack
+			else
+				label = (last / SodokuGenerator.SQUARE_STEPS + 1) * SodokuGenerator.SQUARE_STEPS + 1;
+			final int diff = label - best[SodokuGenerator.LINE_LENGTH + j];
+			if (inverse[original] < 0) // the real label might be bigger
+				return diff > 0 ? diff : 0;
+			if (diff != 0)
+				return diff;
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes the relabeled lines to candidate and sorts them,
+	 * the lines inside every band and the bands by their first line.
+	 */
+	private void sortLines() {
+		final int steps = SodokuGenerator.SQUARE_STEPS;
+		final int topBand = top / steps;
+		// first band: the first line, then the other two lines
+		lineOrder[0] = top;
+		int next = 1;
+		for (int i = topBand * steps; i < topBand * steps + steps; i++)
+			if (i != top)
+				lineOrder[next++] = i;
+		// other bands in original order
+		for (int band = 0; band < steps; band++)
+			if (band != topBand)
+				for (int i = band * steps; i < band * steps + steps; i++)
+					lineOrder[next++] = i;
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				candidate[i * SodokuGenerator.LINE_LENGTH + j] =
+						labels[cells[lineOrder[i] * SodokuGenerator.LINE_LENGTH + order[j]]];
+
+		sortRange(1, steps);
+		sortRange(steps, 2 * steps);
+		sortRange(2 * steps, SodokuGenerator.LINE_COUNT);
+		if (compareLines(steps, 2 * steps) > 0)
+			for (int k = 0; k < steps; k++)
+				swapLines(steps + k, 2 * steps + k);
+	}
+
+	/**
+	 * Sorts the lines of candidate in the passed range.
+	 * @param from the first line
+	 * @param to the line after the last one
+	 */
+	private void sortRange(final int from, final int to) {
+		for (int i = from + 1; i < to; i++)
+			for (int k = i; k > from && compareLines(k - 1, k) > 0; k--)
+				swapLines(k - 1, k);
+	}
+
+	/**
+	 * Compares two lines of candidate.
+	 * @param first the first line
+	 * @param second the second line
+	 * @return negative, zero or positive, if the first line is smaller, equal or bigger
+	 */
+	private int compareLines(final int first, final int second) {
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+			final int diff = candidate[first * SodokuGenerator.LINE_LENGTH + j]
+					- candidate[second * SodokuGenerator.LINE_LENGTH + j];
+			if (diff != 0)
+				return diff;
+		}
+		return 0;
+	}
+
+	/**
+	 * Swaps two lines of candidate and their original lines.
+	 * @param first the first line
+	 * @param second the second line
+	 */
+	private void swapLines(final int first, final int second) {
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+			final byte tmp = candidate[first * SodokuGenerator.LINE_LENGTH + j];
+			candidate[first * SodokuGenerator.LINE_LENGTH + j] = candidate[second * SodokuGenerator.LINE_LENGTH + j];
+			candidate[second * SodokuGenerator.LINE_LENGTH + j] = tmp;
+		}
+		final int tmp = lineOrder[first];
+		lineOrder[first] = lineOrder[second];
+		lineOrder[second] = tmp;
+	}
+
+	/**
+	 * Replaces best by candidate, if candidate is smaller.
+	 */
+	private void compareCandidate() {
+		int diff = found ? compare(candidate, best) : -1;
+		if (diff > 0 || diff == 0 && !puzzle)
+			return;
+		if (puzzle) {
+			for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+				for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+					candidateGiven[i * SodokuGenerator.LINE_LENGTH + j] =
+							givenCells[lineOrder[i] * SodokuGenerator.LINE_LENGTH + order[j]] == Grid.EMPTY
+							? (byte) 0 : (byte) 1;
+			if (diff == 0)
+				diff = compare(candidateGiven, bestGiven);
+			if (diff >= 0)
+				return;
+			System.arraycopy(candidateGiven, 0, bestGiven, 0, Grid.FIELD_COUNT);
+		}
+		System.arraycopy(candidate, 0, best, 0, Grid.FIELD_COUNT);
+		found = true;
+	}
+
+	/**
+	 * Compares two arrays of fields.
+	 * @param first the first fields
+	 * @param second the second fields
+	 * @return negative, zero or positive, if the first fields are smaller, equal or bigger
+	 */
+	private static int compare(final byte[] first, final byte... second) {
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			if (first[i] != second[i])
+				return first[i] - second[i];
+		return 0;
+	}
+
+	/**
+	 * Computes the key of best and bestGiven.
+	 */
+	private void computeKey() {
+		long high = HIGH_SEED;
+		long low = LOW_SEED;
+		long word = 0;
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			word = word << 5 | best[i] | (puzzle ? bestGiven[i] << 4 : 0);
+			if (i % 12 == 11 || i == Grid.FIELD_COUNT - 1) { // 12 fields of 5 bits per word
+				high = SodokuGenerator.mix(high + word);
+				low = SodokuGenerator.mix(low ^ word * LOW_SEED);
+				word = 0;
+			}
+		}
+		keyHigh = high;
+		keyLow = low;
+	}
+
+	/**
+	 * Writes the smallest equal sodoku to the passed grid.
+	 * @param target the grid to write to
+	 */
+	public void getCanonical(final Grid target) {
+		target.clear();
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				if (!puzzle || bestGiven[i * SodokuGenerator.LINE_LENGTH + j] != 0)
+					target.set(i, j, best[i * SodokuGenerator.LINE_LENGTH + j]);
+	}
+
+	// Getter
+
+	/**
+	 * Returns the first half of the key of the last sodoku.
+	 * @return the first 64 bits of the key
+	 */
+	public long getKeyHigh() {
+		return keyHigh;
+	}
+
+	/**
+	 * Returns the second half of the key of the last sodoku.
+	 * @return the last 64 bits of the key
+	 */
+	public long getKeyLow() {
+		return keyLow;
+	}
+}
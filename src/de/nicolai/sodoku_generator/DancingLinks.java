@@ -0,0 +1,423 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Solves sodokus as exact cover problem with Knuth's Algorithm X and dancing links.
+ * Every choice of an element for a field is a row covering four of the 324 columns:
+ * the field, the element in the line, the element in the row and the element in the square.
+ * The nodes of the matrix are indices into int arrays instead of objects.
+ * For every search the matrix is created out of the choices left by the given elements,
+ * in the arrays of the solver, so it can be reused for any count of sodokus without allocations.
+ * @author Nicolai
+ *
+ */
+public class DancingLinks {
+
+	// Constants
+
+	/**
+	 * Count of constraints every choice covers.
+	 */
+	private static final int CONSTRAINTS = 4;
+	/**
+	 * Count of columns, one for every field and every element in every line, row and square.
+	 */
+	private static final int COLUMN_COUNT = CONSTRAINTS * Grid.FIELD_COUNT;
+	/**
+	 * Count of choices, one for every element in every field.
+	 */
+	private static final int CHOICE_COUNT = Grid.FIELD_COUNT * SodokuGenerator.LINE_LENGTH;
+	/**
+	 * Index of the root, the column headers follow from 1 to COLUMN_COUNT.
+	 */
+	private static final int ROOT = 0;
+	/**
+	 * Index of the first node of the choices.
+	 */
+	private static final int FIRST_NODE = COLUMN_COUNT + 1;
+	/**
+	 * Count of the root, the column headers and the nodes of the choices.
+	 */
+	private static final int NODE_COUNT = FIRST_NODE + CHOICE_COUNT * CONSTRAINTS;
+
+	// Attributes
+
+	/**
+	 * Left neighbour of every node.
+	 */
+	private final int[] left = new int[NODE_COUNT];
+	/**
+	 * Right neighbour of every node.
+	 */
+	private final int[] right = new int[NODE_COUNT];
+	/**
+	 * Upper neighbour of every node.
+	 */
+	private final int[] up = new int[NODE_COUNT];
+	/**
+	 * Lower neighbour of every node.
+	 */
+	private final int[] down = new int[NODE_COUNT];
+	/**
+	 * Column header of every node.
+	 */
+	private final int[] column = new int[NODE_COUNT];
+	/**
+	 * Choice of every node (field * 9 + element - 1).
+	 */
+	private final int[] choices = new int[NODE_COUNT];
+	/**
+	 * Count of nodes left in every column, by index of its header.
+	 */
+	private final int[] size = new int[FIRST_NODE];
+	/**
+	 * Used elements of every line, row and square, while the matrix is created.
+	 */
+	private final int[] used = new int[3 * SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Node of the choice made at every depth of the search.
+	 */
+	private final int[] chosen = new int[Grid.FIELD_COUNT];
+	/**
+	 * Contains the given elements during the search and gets the chosen ones added for a solution.
+	 */
+	private final Grid current = new Grid();
+	/**
+	 * The first solution found by the last search.
+	 */
+	private final Grid solution = new Grid();
+	/**
+	 * Receives every solution, null if they are only counted.
+	 */
+	private Consumer<Grid> receiver;
+	/**
+	 * Count of solutions, after which the search stops.
+	 */
+	private long limit;
+	/**
+	 * Count of solutions found so far.
+	 */
+	private long solutions;
+	/**
+	 * Count of solutions shared with the solvers of other parts of the search tree, null if there are none.
+	 */
+	private AtomicLong sharedSolutions;
+	/**
+	 * Choice left out of the matrix, -1 if all choices are used.
+	 */
+	private int excludedChoice = -1;
+
+	// Methods
+
+	/**
+	 * Counts the solutions of the passed sodoku, but not more than maxSolutions.
+	 * @param sodoku the grid containing the given elements
+	 * @param maxSolutions the count of solutions, after which the search stops
+	 * @return the count of solutions, at most maxSolutions, 0 if the given elements break the rules
+	 */
+	public int countSolutions(final Grid sodoku, final int maxSolutions) {
+		return (int) search(sodoku, maxSolutions, null);
+	}
+
+	/**
+	 * Counts the solutions of the passed sodoku as part of a search split over several solvers.
+	 * Every solution is added to shared, and the search stops as soon as shared reaches maxSolutions,
+	 * no matter which solver found them.
+	 * @param sodoku the grid containing the given elements
+	 * @param maxSolutions the count of solutions of all solvers, after which the search stops
+	 * @param shared the count of solutions of all solvers, null if the search isn't split
+	 * @return the count of solutions found by this solver
+	 */
+	long countSolutions(final Grid sodoku, final long maxSolutions, final AtomicLong shared) {
+		sharedSolutions = shared;
+		try {
+			return search(sodoku, maxSolutions, null);
+		} finally {
+			sharedSolutions = null;
+		}
+	}
+
+	/**
+	 * Checks if the passed sodoku has exactly one solution.
+	 * @param sodoku the grid containing the given elements
+	 * @return true, if the sodoku has a unique solution
+	 */
+	public boolean hasUniqueSolution(final Grid sodoku) {
+		return countSolutions(sodoku, 2) == 1;
+	}
+
+	/**
+	 * Checks if the passed sodoku has a solution with another element than the passed one in an empty field.
+	 * If the sodoku with the element has a unique solution, the sodoku without it only keeps the solution unique,
+	 * if there is no such solution. So only one solution has to be searched instead of two,
+	 * and the choice of the known solution, which would be searched first otherwise, is left out.
+	 * @param sodoku the grid containing the given elements
+	 * @param line the line of the empty field
+	 * @param row the row of the empty field
+	 * @param element the element (1-9), which the field mustn't contain
+	 * @return true, if there is a solution with another element in the field
+	 */
+	public boolean hasOtherSolution(final Grid sodoku, final int line, final int row, final int element) {
+		excludedChoice = (line * SodokuGenerator.LINE_LENGTH + row) * SodokuGenerator.LINE_LENGTH + element - 1;
+		final boolean found = search(sodoku, 1, null) > 0;
+		excludedChoice = -1;
+		return found;
+	}
+
+	/**
+	 * Solves the passed sodoku.
+	 * @param sodoku the grid containing the given elements
+	 * @param result the grid to write the solution to, unchanged if there is none
+	 * @return true, if a solution were found
+	 */
+	public boolean solve(final Grid sodoku, final Grid result) {
+		if (countSolutions(sodoku, 1) == 0)
+			return false;
+		copySolution(result);
+		return true;
+	}
+
+	/**
+	 * Passes every solution of the passed sodoku to out.
+	 * The passed grid is reused for the next solution, so it must be copied to be kept.
+	 * @param sodoku the grid containing the given elements
+	 * @param out receives every solution
+	 * @return the count of solutions
+	 */
+	public long enumerate(final Grid sodoku, final Consumer<Grid> out) {
+		return search(sodoku, Long.MAX_VALUE, out);
+	}
+
+	/**
+	 * Returns the first solution found by the last search.
+	 * @return a copy of the solution, undefined if no solution were found
+	 */
+	public Grid getSolution() {
+		return new Grid(solution);
+	}
+
+	/**
+	 * Copies the first solution found by the last search.
+	 * @param result the grid to write the solution to, undefined if no solution were found
+	 */
+	public void copySolution(final Grid result) {
+		result.copyFrom(solution);
+	}
+
+	/**
+	 * Creates the matrix for the passed sodoku and searches its solutions.
+	 * @param sodoku the grid containing the given elements
+	 * @param maxSolutions the count of solutions, after which the search stops
+	 * @param out receives every solution, null to only count them
+	 * @return the count of solutions, 0 if the given elements break the rules
+	 */
+	private long search(final Grid sodoku, final long maxSolutions, final Consumer<Grid> out) {
+		current.copyFrom(sodoku);
+		receiver = out;
+		limit = maxSolutions;
+		solutions = 0;
+		if (createMatrix(sodoku))
+			search(0);
+		receiver = null;
+		return solutions;
+	}
+
+	/**
+	 * Creates the matrix out of the columns, which aren't covered by the given elements,
+	 * and the choices, which don't break the rules with them.
+	 * So the given elements cost nothing during the search,
+	 * and a nearly full sodoku only needs a small matrix.
+	 * @param sodoku the grid containing the given elements
+	 * @return false, if the given elements break the rules
+	 */
+	private boolean createMatrix(final Grid sodoku) {
+		final int length = SodokuGenerator.LINE_LENGTH;
+		Arrays.fill(used, 0);
+		for (int field = 0; field < Grid.FIELD_COUNT; field++) {
+			final int element = sodoku.get(field / length, field % length);
+			if (element == Grid.EMPTY)
+				continue;
+			final int bit = 1 << (element - 1);
+			final int line = field / length;
+			final int row = length + field % length;
+			final int square = 2 * length + Grid.getSquare(field / length, field % length);
+			if (((used[line] | used[row] | used[square]) & bit) != 0)
+				return false; // element twice in a unit
+			used[line] |= bit;
+			used[row] |= bit;
+			used[square] |= bit;
+		}
+
+		// headers of the columns not covered by the given elements
+		int last = ROOT;
+		for (int header = 1; header < FIRST_NODE; header++) {
+			final int constraint = (header - 1) / Grid.FIELD_COUNT;
+			final int index = (header - 1) % Grid.FIELD_COUNT;
+			final boolean coveredByGiven = constraint == 0
+					? sodoku.get(index / length, index % length) != Grid.EMPTY
+					: (used[(constraint - 1) * length + index / length] & 1 << (index % length)) != 0;
+			if (coveredByGiven)
+				continue;
+			right[last] = header;
+			left[header] = last;
+			up[header] = header;
+			down[header] = header;
+			size[header] = 0;
+			last = header;
+		}
+		right[last] = ROOT;
+		left[ROOT] = last;
+
+		// rows of the choices
+		int node = FIRST_NODE;
+		for (int field = 0; field < Grid.FIELD_COUNT; field++) {
+			final int line = field / length;
+			final int row = field % length;
+			if (sodoku.get(line, row) != Grid.EMPTY)
+				continue;
+			final int square = Grid.getSquare(line, row);
+			for (int rest = Grid.ALL_ELEMENTS & ~(used[line] | used[length + row] | used[2 * length + square]);
+					rest != 0; rest &= rest - 1) {
+				final int element = Integer.numberOfTrailingZeros(rest);
+				if (field * length + element == excludedChoice)
+					continue;
+				addRow(node, field * length + element, line * length + element, row * length + element,
+						square * length + element);
+				node += CONSTRAINTS;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the nodes of a choice at the bottom of their columns.
+	 * @param first the index of the first node
+	 * @param choice the choice (field * 9 + element - 1)
+	 * @param line the index of the element in the line
+	 * @param row the index of the element in the row
+	 * @param square the index of the element in the square
+	 */
+	private void addRow(final int first, final int choice, final int line, final int row, final int square) {
+		addNode(first, choice, 1 + choice / SodokuGenerator.LINE_LENGTH);
+		addNode(first + 1, choice, 1 + Grid.FIELD_COUNT + line);
+		addNode(first + 2, choice, 1 + 2 * Grid.FIELD_COUNT + row);
+		addNode(first + 3, choice, 1 + 3 * Grid.FIELD_COUNT + square);
+	}
+
+	/**
+	 * Adds a node of a choice at the bottom of its column.
+	 * @param node the index of the node
+	 * @param choice the choice (field * 9 + element - 1)
+	 * @param header the header of the column
+	 */
+	private void addNode(final int node, final int choice, final int header) {
+		final int first = node - (node - FIRST_NODE) % CONSTRAINTS;
+		left[node] = node == first ? first + CONSTRAINTS - 1 : node - 1;
+		right[node] = node == first + CONSTRAINTS - 1 ? first : node + 1;
+		column[node] = header;
+		choices[node] = choice;
+		up[node] = up[header];
+		down[node] = header;
+		down[up[header]] = node;
+		up[header] = node;
+		size[header]++;
+	}
+
+	/**
+	 * Chooses the rows of the remaining columns recursively and counts the solutions.
+	 * @param depth count of choices made so far
+	 * @return true, if the limit is reached and the search should stop
+	 */
+	private boolean search(final int depth) {
+		if (sharedSolutions != null && sharedSolutions.get() >= limit)
+			return true; // limit reached by another solver
+		if (right[ROOT] == ROOT) // all columns covered
+			return found(depth);
+
+		// column with the fewest choices
+		int best = right[ROOT];
+		int bestSize = size[best];
+		for (int header = right[best]; header != ROOT && bestSize > 1; header = right[header])
+			if (size[header] < bestSize) {
+				best = header;
+				bestSize = size[header];
+			}
+		if (bestSize == 0)
+			return false; // dead end
+
+		cover(best);
+		for (int node = down[best]; node != best; node = down[node]) {
+			chosen[depth] = node;
+			for (int other = right[node]; other != node; other = right[other])
+				cover(column[other]);
+			final boolean stop = search(depth + 1);
+			for (int other = left[node]; other != node; other = left[other])
+				uncover(column[other]);
+			if (stop) {
+				uncover(best);
+				return true;
+			}
+		}
+		uncover(best);
+		return false;
+	}
+
+	/**
+	 * Counts a solution and passes it to the receiver.
+	 * @param depth count of choices made
+	 * @return true, if the limit is reached and the search should stop
+	 */
+	private boolean found(final int depth) {
+		if (solutions == 0 || receiver != null) {
+			for (int i = 0; i < depth; i++) {
+				final int choice = choices[chosen[i]];
+				final int field = choice / SodokuGenerator.LINE_LENGTH;
+				current.set(field / SodokuGenerator.LINE_LENGTH, field % SodokuGenerator.LINE_LENGTH,
+						choice % SodokuGenerator.LINE_LENGTH + 1);
+			}
+			if (solutions == 0)
+				solution.copyFrom(current);
+			if (receiver != null)
+				receiver.accept(current);
+			for (int i = 0; i < depth; i++) {
+				final int field = choices[chosen[i]] / SodokuGenerator.LINE_LENGTH;
+				current.remove(field / SodokuGenerator.LINE_LENGTH, field % SodokuGenerator.LINE_LENGTH);
+			}
+		}
+		solutions++;
+		return (sharedSolutions == null ? solutions : sharedSolutions.incrementAndGet()) >= limit;
+	}
+
+	/**
+	 * Removes a column and all rows intersecting it from the matrix.
+	 * @param header the index of the column header
+	 */
+	private void cover(final int header) {
+		right[left[header]] = right[header];
+		left[right[header]] = left[header];
+		for (int node = down[header]; node != header; node = down[node])
+			for (int other = right[node]; other != node; other = right[other]) {
+				up[down[other]] = up[other];
+				down[up[other]] = down[other];
+				size[column[other]]--;
+			}
+	}
+
+	/**
+	 * Puts a column and all rows intersecting it back, in the reverse order of cover.
+	 * @param header the index of the column header
+	 */
+	private void uncover(final int header) {
+		for (int node = up[header]; node != header; node = up[node])
+			for (int other = left[node]; other != node; other = left[other]) {
+				size[column[other]]++;
+				up[down[other]] = other;
+				down[up[other]] = other;
+			}
+		right[left[header]] = header;
+		left[right[header]] = header;
+	}
+}
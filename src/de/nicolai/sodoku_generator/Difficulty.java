@@ -0,0 +1,26 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Difficulty tiers of solvable sodokus,
+ * depending on the hardest technique needed to solve them.
+ * @author Nicolai
+ *
+ */
+public enum Difficulty {
+	/**
+	 * Solvable with singles only.
+	 */
+	EASY,
+	/**
+	 * Needs pointing, box line reduction or naked pairs.
+	 */
+	MEDIUM,
+	/**
+	 * Needs hidden pairs or X-Wings.
+	 */
+	HARD,
+	/**
+	 * Not solvable with the techniques of the DifficultyRater.
+	 */
+	EXPERT
+}
@@ -0,0 +1,630 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Rates how hard a sodoku is for humans,
+ * by solving it with human techniques ordered from easy to hard.
+ * After every step the easiest technique is tried again,
+ * so the rating reflects the hardest technique, which can't be avoided.
+ * The candidates of every field are kept as bitmasks.
+ * @author Nicolai
+ *
+ */
+public class DifficultyRater {
+
+	// Constants
+
+	/**
+	 * Count of lines, rows and squares.
+	 */
+	private static final int UNIT_COUNT = 27;
+	/**
+	 * Index of the first row in UNITS, the lines come before.
+	 */
+	private static final int FIRST_ROW = 9;
+	/**
+	 * Index of the first square in UNITS, the rows come before.
+	 */
+	private static final int FIRST_SQUARE = 18;
+	/**
+	 * Fields of every line, row and square (in this order).
+	 */
+	private static final int[][] UNITS = new int[UNIT_COUNT][SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Line, row and square (as index in UNITS) of every field.
+	 */
+	private static final int[][] FIELD_UNITS = new int[Grid.FIELD_COUNT][3];
+	/**
+	 * Positions in a unit, which belong to the same third (of a line, row or square).
+	 */
+	private static final int[] THIRDS = {0b000_000_111, 0b000_111_000, 0b111_000_000};
+	/**
+	 * Positions in a square, which belong to the same row of the square.
+	 */
+	private static final int[] SQUARE_ROWS = {0b001_001_001, 0b010_010_010, 0b100_100_100};
+
+	// Attributes
+
+	/**
+	 * Element of every field (1-9), 0 if it's empty.
+	 */
+	private final byte[] fields = new byte[Grid.FIELD_COUNT];
+	/**
+	 * Candidates of every empty field as bitmask, 0 for filled fields.
+	 */
+	private final int[] candidates = new int[Grid.FIELD_COUNT];
+	/**
+	 * Positions of every element in the unit checked last, reused to avoid allocations.
+	 */
+	private final int[] positions = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of filled fields.
+	 */
+	private int filled;
+	/**
+	 * True, if an empty field without candidates were found.
+	 */
+	private boolean broken;
+	/**
+	 * The field filled by the last step, -1 if it only removed candidates.
+	 */
+	private int lastPlaced;
+
+	/**
+	 * Initializes the units.
+	 */
+	static {
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				final int field = i * SodokuGenerator.LINE_LENGTH + j;
+				final int square = Grid.getSquare(i, j);
+				final int squarePos = i % SodokuGenerator.SQUARE_STEPS * SodokuGenerator.SQUARE_STEPS
+						+ j % SodokuGenerator.SQUARE_STEPS;
+				UNITS[i][j] = field;
+				UNITS[FIRST_ROW + j][i] = field;
+				UNITS[FIRST_SQUARE + square][squarePos] = field;
+				FIELD_UNITS[field][0] = i;
+				FIELD_UNITS[field][1] = FIRST_ROW + j;
+				FIELD_UNITS[field][2] = FIRST_SQUARE + square;
+			}
+	}
+
+	// Methods
+
+	/**
+	 * Rates the given elements of the passed sodoku.
+	 * @param sodoku the sodoku to rate
+	 * @return the rating of the sodoku
+	 */
+	public Rating rate(final SolvableSodoku sodoku) {
+		return rate(sodoku.getGivenGrid());
+	}
+
+	/**
+	 * Rates the passed sodoku.
+	 * @param sodoku the grid containing the given elements
+	 * @return the rating of the sodoku
+	 */
+	public Rating rate(final Grid sodoku) {
+		init(sodoku);
+		int score = 0;
+		Technique hardest = null;
+		while (filled < Grid.FIELD_COUNT) {
+			final Technique technique = step();
+			if (technique == null)
+				break; // stuck
+			score += technique.getWeight();
+			if (hardest == null || technique.compareTo(hardest) > 0)
+				hardest = technique;
+		}
+		return new Rating(score, hardest, filled == Grid.FIELD_COUNT);
+	}
+
+	/**
+	 * Fills the fields and candidates from the passed grid.
+	 * @param sodoku the grid containing the given elements
+	 */
+	void init(final Grid sodoku) {
+		filled = 0;
+		broken = false;
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final int line = i / SodokuGenerator.LINE_LENGTH;
+			final int row = i % SodokuGenerator.LINE_LENGTH;
+			fields[i] = sodoku.get(line, row);
+			if (fields[i] == Grid.EMPTY) {
+				candidates[i] = sodoku.getCandidates(line, row);
+			} else {
+				candidates[i] = 0;
+				filled++;
+			}
+		}
+	}
+
+	/**
+	 * Applies the easiest technique, which makes progress.
+	 * @return the applied technique, null if no technique makes progress
+	 */
+	Technique step() {
+		lastPlaced = -1;
+		if (hiddenSingle())
+			return Technique.HIDDEN_SINGLE;
+		if (nakedSingle())
+			return Technique.NAKED_SINGLE;
+		if (broken)
+			return null;
+		if (pointing())
+			return Technique.POINTING;
+		if (boxLineReduction())
+			return Technique.BOX_LINE_REDUCTION;
+		if (nakedPair())
+			return Technique.NAKED_PAIR;
+		if (hiddenPair())
+			return Technique.HIDDEN_PAIR;
+		if (xWing())
+			return Technique.X_WING;
+		return null;
+	}
+
+	/**
+	 * Places an element and removes it from the candidates of the other fields in its units.
+	 * @param field the index of the field
+	 * @param bit the element as bitmask
+	 */
+	private void place(final int field, final int bit) {
+		lastPlaced = field;
+		fields[field] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+		candidates[field] = 0;
+		filled++;
+		for (final int unit:FIELD_UNITS[field])
+			for (final int other:UNITS[unit])
+				candidates[other] &= ~bit;
+	}
+
+	/**
+	 * Places a known element, if the field is empty and the element is one of its candidates.
+	 * The candidates of the other fields are updated, so the next step continues from there.
+	 * @param field the index of the field
+	 * @param element the element (1-9)
+	 * @return true, if the element were placed
+	 */
+	boolean placeKnown(final int field, final int element) {
+		final int bit = 1 << (element - 1);
+		if (fields[field] != Grid.EMPTY || (candidates[field] & bit) == 0)
+			return false;
+		place(field, bit);
+		return true;
+	}
+
+	/**
+	 * Returns the element of a field.
+	 * @param field the index of the field
+	 * @return the element (1-9), EMPTY if it's unknown
+	 */
+	byte getElement(final int field) {
+		return fields[field];
+	}
+
+	/**
+	 * Returns the candidates of a field left by the applied techniques.
+	 * @param field the index of the field
+	 * @return the candidates as bitmask, 0 for filled fields
+	 */
+	int getCandidates(final int field) {
+		return candidates[field];
+	}
+
+	/**
+	 * Returns the field filled by the last step.
+	 * @return the index of the field, -1 if the step only removed candidates
+	 */
+	int getLastPlaced() {
+		return lastPlaced;
+	}
+
+	/**
+	 * Checks if all fields are filled.
+	 * @return true, if no field is empty
+	 */
+	boolean isComplete() {
+		return filled == Grid.FIELD_COUNT;
+	}
+
+	/**
+	 * Removes candidates from a field.
+	 * @param field the index of the field
+	 * @param mask the candidates to remove as bitmask
+	 * @return true, if a candidate were removed
+	 */
+	private boolean eliminate(final int field, final int mask) {
+		if ((candidates[field] & mask) == 0)
+			return false;
+		candidates[field] &= ~mask;
+		return true;
+	}
+
+	/**
+	 * Calculates the positions of every element in a unit.
+	 * @param unit the index of the unit
+	 */
+	private void calculatePositions(final int unit) {
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			positions[i] = 0;
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			for (int rest = candidates[UNITS[unit][i]]; rest != 0; rest &= rest - 1)
+				positions[Integer.numberOfTrailingZeros(rest)] |= 1 << i;
+	}
+
+	/**
+	 * Places an element, which is the only candidate of a field.
+	 * @return true, if an element were placed
+	 */
+	private boolean nakedSingle() {
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			if (fields[i] == Grid.EMPTY) {
+				final int fieldCandidates = candidates[i];
+				if (fieldCandidates == 0) {
+					broken = true;
+					return false;
+				}
+				if ((fieldCandidates & (fieldCandidates - 1)) == 0) {
+					place(i, fieldCandidates);
+					return true;
+				}
+			}
+		return false;
+	}
+
+	/**
+	 * Places an element, which has only one possible field in a unit.
+	 * @return true, if an element were placed
+	 */
+	private boolean hiddenSingle() {
+		for (final int[] unit:UNITS) {
+			int once = 0;
+			int twice = 0;
+			for (final int field:unit) {
+				twice |= once & candidates[field];
+				once |= candidates[field];
+			}
+			final int singles = once & ~twice;
+			if (singles != 0) {
+				final int bit = Integer.lowestOneBit(singles);
+				for (final int field:unit)
+					if ((candidates[field] & bit) != 0) {
+						place(field, bit);
+						return true;
+					}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the candidates of two fields in a unit, which have the same two candidates,
+	 * from the other fields of the unit.
+	 * @return true, if a candidate were removed
+	 */
+	private boolean nakedPair() {
+		for (final int[] unit:UNITS)
+			for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++) {
+				final int pair = candidates[unit[i]];
+				if (Integer.bitCount(pair) != 2)
+					continue;
+				for (int j = i + 1; j < SodokuGenerator.LINE_LENGTH; j++)
+					if (candidates[unit[j]] == pair) {
+						boolean changed = false;
+						for (int k = 0; k < SodokuGenerator.LINE_LENGTH; k++)
+							if (k != i && k != j)
+								changed |= eliminate(unit[k], pair);
+						if (changed)
+							return true;
+					}
+			}
+		return false;
+	}
+
+	/**
+	 * Removes the other candidates of two fields,
+	 * which are the only possible fields for two elements in a unit.
+	 * @return true, if a candidate were removed
+	 */
+	private boolean hiddenPair() {
+		for (int unit = 0; unit < UNIT_COUNT; unit++) {
+			calculatePositions(unit);
+			for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++) {
+				if (Integer.bitCount(positions[i]) != 2)
+					continue;
+				for (int j = i + 1; j < SodokuGenerator.LINE_LENGTH; j++)
+					if (positions[j] == positions[i]) {
+						final int others = Grid.ALL_ELEMENTS & ~(1 << i | 1 << j);
+						boolean changed = false;
+						for (int rest = positions[i]; rest != 0; rest &= rest - 1)
+							changed |= eliminate(UNITS[unit][Integer.numberOfTrailingZeros(rest)], others);
+						if (changed)
+							return true;
+					}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes an element from a line or row outside of a square,
+	 * if all its possible fields in the square are in this line or row.
+	 * @return true, if a candidate were removed
+	 */
+	private boolean pointing() {
+		for (int square = 0; square < SodokuGenerator.LINE_COUNT; square++) {
+			final int unit = FIRST_SQUARE + square;
+			calculatePositions(unit);
+			for (int element = 0; element < SodokuGenerator.LINE_LENGTH; element++) {
+				final int squareLine = getOnlyThird(positions[element], THIRDS);
+				final int squareRow = getOnlyThird(positions[element], SQUARE_ROWS);
+				boolean changed = false;
+				if (squareLine >= 0)
+					changed = eliminateOutside(square / SodokuGenerator.SQUARE_STEPS
+							* SodokuGenerator.SQUARE_STEPS + squareLine, unit, 1 << element);
+				if (squareRow >= 0)
+					changed |= eliminateOutside(FIRST_ROW + square % SodokuGenerator.SQUARE_STEPS
+							* SodokuGenerator.SQUARE_STEPS + squareRow, unit, 1 << element);
+				if (changed)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes an element from a square outside of a line or row,
+	 * if all its possible fields in the line or row are in this square.
+	 * @return true, if a candidate were removed
+	 */
+	private boolean boxLineReduction() {
+		for (int unit = 0; unit < FIRST_SQUARE; unit++) {
+			calculatePositions(unit);
+			for (int element = 0; element < SodokuGenerator.LINE_LENGTH; element++) {
+				final int third = getOnlyThird(positions[element], THIRDS);
+				if (third >= 0) {
+					final int square = FIELD_UNITS[UNITS[unit][third * SodokuGenerator.SQUARE_STEPS]][2];
+					if (eliminateOutside(square, unit, 1 << element))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes an element from two rows (lines), if the element has exactly two possible fields
+	 * in two lines (rows) and these fields are in the same two rows (lines).
+	 * @return true, if a candidate were removed
+	 */
+	private boolean xWing() {
+		for (int base = 0; base < FIRST_SQUARE; base += FIRST_ROW) {
+			final int cover = FIRST_ROW - base; // rows for lines and lines for rows
+			for (int element = 0; element < SodokuGenerator.LINE_LENGTH; element++) {
+				final int bit = 1 << element;
+				for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++) {
+					final int first = getPositions(base + i, bit);
+					if (Integer.bitCount(first) != 2)
+						continue;
+					for (int j = i + 1; j < SodokuGenerator.LINE_LENGTH; j++)
+						if (getPositions(base + j, bit) == first) {
+							boolean changed = false;
+							for (int rest = first; rest != 0; rest &= rest - 1) {
+								final int[] coverUnit = UNITS[cover + Integer.numberOfTrailingZeros(rest)];
+								for (int k = 0; k < SodokuGenerator.LINE_LENGTH; k++)
+									if (k != i && k != j)
+										changed |= eliminate(coverUnit[k], bit);
+							}
+							if (changed)
+								return true;
+						}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the positions of a single element in a unit.
+	 * @param unit the index of the unit
+	 * @param bit the element as bitmask
+	 * @return the positions as bitmask
+	 */
+	private int getPositions(final int unit, final int bit) {
+		int unitPositions = 0;
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			if ((candidates[UNITS[unit][i]] & bit) != 0)
+				unitPositions |= 1 << i;
+		return unitPositions;
+	}
+
+	/**
+	 * Checks if all positions belong to the same third.
+	 * @param unitPositions the positions as bitmask
+	 * @param thirds the positions of every third as bitmask
+	 * @return the index of the third, -1 if no or several thirds are used
+	 */
+	private static int getOnlyThird(final int unitPositions, final int... thirds) {
+		if (unitPositions == 0)
+			return -1;
+		for (int i = 0; i < thirds.length; i++)
+			if ((unitPositions & ~thirds[i]) == 0)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Removes an element from all fields of a unit, which aren't part of another unit.
+	 * @param unit the index of the unit to remove the element from
+	 * @param keep the index of the unit, which fields keep the element
+	 * @param bit the element as bitmask
+	 * @return true, if a candidate were removed
+	 */
+	private boolean eliminateOutside(final int unit, final int keep, final int bit) {
+		final int keepType = keep / SodokuGenerator.LINE_COUNT; // 0 line, 1 row, 2 square
+		boolean changed = false;
+		for (final int field:UNITS[unit])
+			if (FIELD_UNITS[field][keepType] != keep)
+				changed |= eliminate(field, bit);
+		return changed;
+	}
+
+	// inner classes
+
+	/**
+	 * Human techniques used by the rater, ordered from easy to hard.
+	 * @author Nicolai
+	 *
+	 */
+	public enum Technique {
+		/**
+		 * An element has only one possible field in a line, row or square.
+		 */
+		HIDDEN_SINGLE("Hidden single", 1, Difficulty.EASY),
+		/**
+		 * A field has only one candidate.
+		 */
+		NAKED_SINGLE("Naked single", 2, Difficulty.EASY),
+		/**
+		 * The candidates of an element in a square are all in one line or row.
+		 */
+		POINTING("Pointing", 5, Difficulty.MEDIUM),
+		/**
+		 * The candidates of an element in a line or row are all in one square.
+		 */
+		BOX_LINE_REDUCTION("Box line reduction", 6, Difficulty.MEDIUM),
+		/**
+		 * Two fields of a unit have the same two candidates.
+		 */
+		NAKED_PAIR("Naked pair", 8, Difficulty.MEDIUM),
+		/**
+		 * Two elements of a unit have the same two possible fields.
+		 */
+		HIDDEN_PAIR("Hidden pair", 12, Difficulty.HARD),
+		/**
+		 * An element forms a rectangle of possible fields in two lines or rows.
+		 */
+		X_WING("X-Wing", 20, Difficulty.HARD);
+
+		/**
+		 * The name to display.
+		 */
+		private final String displayName;
+		/**
+		 * Added to the score for each time the technique is applied.
+		 */
+		private final int weight;
+		/**
+		 * The difficulty of a sodoku, which needs this technique.
+		 */
+		private final Difficulty difficulty;
+
+		/**
+		 * Creates a technique.
+		 * @param name the name to display
+		 * @param tWeight the score for each application
+		 * @param tDifficulty the difficulty of sodokus needing it
+		 */
+		Technique(final String name, final int tWeight, final Difficulty tDifficulty) {
+			displayName = name;
+			weight = tWeight;
+			difficulty = tDifficulty;
+		}
+
+		/**
+		 * Returns the score for each application.
+		 * @return the weight of the technique
+		 */
+		public int getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Returns the difficulty of sodokus needing this technique.
+		 * @return the difficulty
+		 */
+		public Difficulty getDifficulty() {
+			return difficulty;
+		}
+
+		@Override
+		public String toString() {
+			return displayName;
+		}
+	}
+
+	/**
+	 * The result of rating a sodoku.
+	 * @author Nicolai
+	 *
+	 */
+	public static class Rating {
+		/**
+		 * Sum of the weights of all applied techniques.
+		 */
+		private final int score;
+		/**
+		 * The hardest applied technique, null if no technique were needed.
+		 */
+		private final Technique hardestTechnique;
+		/**
+		 * True, if the sodoku could be solved with the techniques.
+		 */
+		private final boolean solved;
+
+		/**
+		 * Creates a rating.
+		 * @param rScore sum of the weights of all applied techniques
+		 * @param hardest the hardest applied technique
+		 * @param rSolved true, if the sodoku could be solved
+		 */
+		public Rating(final int rScore, final Technique hardest, final boolean rSolved) {
+			score = rScore;
+			hardestTechnique = hardest;
+			solved = rSolved;
+		}
+
+		/**
+		 * Returns the difficulty tier.
+		 * @return EXPERT if the techniques couldn't solve the sodoku,
+		 * otherwise the difficulty of the hardest technique
+		 */
+		public Difficulty getDifficulty() {
+			if (!solved)
+				return Difficulty.EXPERT;
+			if (hardestTechnique == null)
+				return Difficulty.EASY;
+			return hardestTechnique.getDifficulty();
+		}
+
+		/**
+		 * Returns the score.
+		 * @return sum of the weights of all applied techniques
+		 */
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * Returns the hardest applied technique.
+		 * @return the technique, null if no technique were needed
+		 */
+		public Technique getHardestTechnique() {
+			return hardestTechnique;
+		}
+
+		/**
+		 * Checks if the sodoku could be solved with the techniques.
+		 * @return true, if the sodoku were solved
+		 */
+		public boolean isSolved() {
+			return solved;
+		}
+
+		@Override
+		public String toString() {
+			return getDifficulty() + ", score " + score + ", hardest technique: " + hardestTechnique;
+		}
+	}
+}
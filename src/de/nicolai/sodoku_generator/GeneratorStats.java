@@ -0,0 +1,213 @@
+package de.nicolai.sodoku_generator;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the hot paths of the engines and the time per generated grid,
+ * shared by all threads.
+ * The counters are LongAdders, so threads don't contend for them,
+ * and the engines add their tries once per line, not once per try.
+ * Can be read by JMX, after calling register.
+ * @author Nicolai
+ *
+ */
+public final class GeneratorStats implements GeneratorStatsMXBean {
+
+	// Constants
+
+	/**
+	 * Name the stats are registered with.
+	 */
+	public static final String OBJECT_NAME = "de.nicolai.sodoku_generator:type=GeneratorStats";
+	/**
+	 * The stats of all generators.
+	 */
+	private static final GeneratorStats INSTANCE = new GeneratorStats();
+	/**
+	 * Nanoseconds per microsecond, for the report.
+	 */
+	private static final double NANOS_PER_MICRO = 1_000;
+
+	// Attributes
+
+	/**
+	 * Count of tries to add a line, for every line index.
+	 */
+	private final LongAdder[] lineAttempts = new LongAdder[SodokuGenerator.LINE_COUNT];
+	/**
+	 * Count of searches started again.
+	 */
+	private final LongAdder resets = new LongAdder();
+	/**
+	 * Count of bands removed after a dead end.
+	 */
+	private final LongAdder bandBacktracks = new LongAdder();
+	/**
+	 * Count of sodokus, the last line couldn't be added to.
+	 */
+	private final LongAdder lastLineFailures = new LongAdder();
+	/**
+	 * Time to generate a grid.
+	 */
+	private final LatencyHistogram gridTimes = new LatencyHistogram();
+
+	// Constructor
+
+	/**
+	 * Creates the counters.
+	 */
+	private GeneratorStats() {
+		super();
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			lineAttempts[i] = new LongAdder();
+	}
+
+	// static Methods
+
+	/**
+	 * Returns the stats of all generators.
+	 * @return the stats
+	 */
+	public static GeneratorStats get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers the stats at the platform MBean server, so they can be read by JMX.
+	 * @return true, if the stats are registered
+	 */
+	public static boolean register() {
+		try {
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+			return true;
+		} catch (JMException e) {
+			return false;
+		}
+	}
+
+	// Methods
+
+	/**
+	 * Adds tries to add a line.
+	 * @param line the index of the line
+	 * @param attempts count of tries
+	 */
+	public void addLineAttempts(final int line, final long attempts) {
+		lineAttempts[line].add(attempts);
+	}
+
+	/**
+	 * Counts a search started again.
+	 */
+	public void addReset() {
+		resets.increment();
+	}
+
+	/**
+	 * Counts a band removed after a dead end.
+	 */
+	public void addBandBacktrack() {
+		bandBacktracks.increment();
+	}
+
+	/**
+	 * Counts a sodoku, the last line couldn't be added to.
+	 */
+	public void addLastLineFailure() {
+		lastLineFailures.increment();
+	}
+
+	/**
+	 * Records the time a grid were generated in.
+	 * @param nanos the time in nanoseconds
+	 */
+	public void recordGrid(final long nanos) {
+		gridTimes.record(nanos);
+	}
+
+	/**
+	 * Creates a text representation of all counters.
+	 * @return the report, one counter per line
+	 */
+	public String getReport() {
+		final StringBuilder sBuilder = new StringBuilder(256);
+		sBuilder.append("Grids: ").append(getGridCount())
+				.append("\nResets: ").append(getResets())
+				.append("\nBand backtracks: ").append(getBandBacktracks())
+				.append("\nLast line failures: ").append(getLastLineFailures())
+				.append("\nLine attempts:");
+		for (final long attempts:getLineAttempts())
+			sBuilder.append(' ').append(attempts);
+		sBuilder.append(String.format("%nGrid time (us): mean %.1f, median %.1f, p90 %.1f, p99 %.1f, max %.1f",
+				getMeanNanos() / NANOS_PER_MICRO, getMedianNanos() / NANOS_PER_MICRO,
+				gridTimes.getPercentile(90) / NANOS_PER_MICRO, getP99Nanos() / NANOS_PER_MICRO,
+				getMaxNanos() / NANOS_PER_MICRO));
+		return sBuilder.toString();
+	}
+
+	// Overrides
+
+	@Override
+	public long getGridCount() {
+		return gridTimes.getCount();
+	}
+
+	@Override
+	public long[] getLineAttempts() {
+		final long[] attempts = new long[SodokuGenerator.LINE_COUNT];
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			attempts[i] = lineAttempts[i].sum();
+		return attempts;
+	}
+
+	@Override
+	public long getResets() {
+		return resets.sum();
+	}
+
+	@Override
+	public long getBandBacktracks() {
+		return bandBacktracks.sum();
+	}
+
+	@Override
+	public long getLastLineFailures() {
+		return lastLineFailures.sum();
+	}
+
+	@Override
+	public double getMeanNanos() {
+		return gridTimes.getMean();
+	}
+
+	@Override
+	public long getMedianNanos() {
+		return gridTimes.getPercentile(50);
+	}
+
+	@Override
+	public long getP99Nanos() {
+		return gridTimes.getPercentile(99);
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return gridTimes.getMax();
+	}
+
+	@Override
+	public void reset() {
+		for (final LongAdder attempts:lineAttempts)
+			attempts.reset();
+		resets.reset();
+		bandBacktracks.reset();
+		lastLineFailures.reset();
+		gridTimes.reset();
+	}
+}
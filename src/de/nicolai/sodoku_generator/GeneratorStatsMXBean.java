@@ -0,0 +1,67 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Management interface of the GeneratorStats, to read them by JMX.
+ * @author Nicolai
+ *
+ */
+public interface GeneratorStatsMXBean {
+	/**
+	 * Returns the count of generated grids.
+	 * @return the count of grids
+	 */
+	long getGridCount();
+
+	/**
+	 * Returns the count of tries to add a line, for every line index.
+	 * @return the count of tries per line
+	 */
+	long[] getLineAttempts();
+
+	/**
+	 * Returns the count of searches started again.
+	 * @return the count of resets
+	 */
+	long getResets();
+
+	/**
+	 * Returns the count of bands removed after a dead end.
+	 * @return the count of removed bands
+	 */
+	long getBandBacktracks();
+
+	/**
+	 * Returns the count of sodokus, the last line couldn't be added to.
+	 * @return the count of failures of the last line
+	 */
+	long getLastLineFailures();
+
+	/**
+	 * Returns the mean time to generate a grid.
+	 * @return the mean time in nanoseconds
+	 */
+	double getMeanNanos();
+
+	/**
+	 * Returns the time, half of the grids were generated in.
+	 * @return the median time in nanoseconds
+	 */
+	long getMedianNanos();
+
+	/**
+	 * Returns the time, 99 percent of the grids were generated in.
+	 * @return the 99th percentile in nanoseconds
+	 */
+	long getP99Nanos();
+
+	/**
+	 * Returns the longest time to generate a grid.
+	 * @return the longest time in nanoseconds
+	 */
+	long getMaxNanos();
+
+	/**
+	 * Sets all counters to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,441 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.Arrays;
+
+/**
+ * The fields of a sodoku as primitive bitboard.
+ * Every field holds its element (1-9) as byte, 0 if it's empty.
+ * The used elements of every line, row and square are kept as bitmask,
+ * where bit i stands for element i + 1,
+ * so checking if an element could be placed doesn't need to scan the sodoku.
+ * Grids have 9x9 fields, unless another square size from MIN_SQUARE_SIZE to MAX_SQUARE_SIZE is passed,
+ * so 4x4 up to 25x25 fields, with the elements 1 to the length of a line.
+ * The solvers, the rater and the puzzle formats only support 9x9 grids.
+ * @author Nicolai
+ *
+ */
+public class Grid {
+
+	// Constants
+
+	/**
+	 * Count of fields in a sodoku with 9x9 fields.
+	 */
+	public static final int FIELD_COUNT = SodokuGenerator.LINE_COUNT * SodokuGenerator.LINE_LENGTH;
+	/**
+	 * Bitmask containing all possible elements of a sodoku with 9x9 fields.
+	 */
+	public static final int ALL_ELEMENTS = (1 << SodokuGenerator.LINE_LENGTH) - 1;
+	/**
+	 * Value of an empty field.
+	 */
+	public static final byte EMPTY = 0;
+	/**
+	 * Smallest count of lines (and rows) of a square.
+	 */
+	public static final int MIN_SQUARE_SIZE = 2;
+	/**
+	 * Biggest count of lines (and rows) of a square, the elements still fit into an int.
+	 */
+	public static final int MAX_SQUARE_SIZE = 5;
+	/**
+	 * Index of the square of every field, for every square size.
+	 * Shared by all grids of a size, so no field needs a division to find its square.
+	 */
+	private static final byte[][] SQUARES = new byte[MAX_SQUARE_SIZE + 1][];
+
+	static {
+		for (int size = MIN_SQUARE_SIZE; size <= MAX_SQUARE_SIZE; size++) {
+			final int length = size * size;
+			SQUARES[size] = new byte[length * length];
+			for (int i = 0; i < length * length; i++)
+				SQUARES[size][i] = (byte) (i / length / size * size + i % length / size);
+		}
+	}
+
+	// Attributes
+
+	/**
+	 * Count of lines (and rows) of a square.
+	 */
+	private final int squareSize;
+	/**
+	 * Count of fields per line, which is the count of lines and of elements.
+	 */
+	private final int length;
+	/**
+	 * Bitmask containing all possible elements.
+	 */
+	private final int allElements;
+	/**
+	 * Index of the square of every field.
+	 */
+	private final byte[] squares;
+	/**
+	 * Element of every field, line by line.
+	 */
+	private final byte[] fields;
+	/**
+	 * Used elements of every line.
+	 */
+	private final int[] lineMasks;
+	/**
+	 * Used elements of every row.
+	 */
+	private final int[] rowMasks;
+	/**
+	 * Used elements of every square.
+	 */
+	private final int[] squareMasks;
+	/**
+	 * Count of not empty fields.
+	 */
+	private int filledCount;
+
+	// Constructor
+
+	/**
+	 * Creates an empty grid with 9x9 fields.
+	 */
+	public Grid() {
+		this(SodokuGenerator.SQUARE_STEPS);
+	}
+
+	/**
+	 * Creates an empty grid.
+	 * @param gSquareSize count of lines (and rows) of a square
+	 * @throws IllegalArgumentException if the size isn't supported
+	 */
+	public Grid(final int gSquareSize) {
+		super();
+		if (gSquareSize < MIN_SQUARE_SIZE || gSquareSize > MAX_SQUARE_SIZE)
+			throw new IllegalArgumentException("Square size must be between " + MIN_SQUARE_SIZE + " and "
+					+ MAX_SQUARE_SIZE + ", but was " + gSquareSize);
+		squareSize = gSquareSize;
+		length = gSquareSize * gSquareSize;
+		allElements = (int) ((1L << length) - 1);
+		squares = SQUARES[gSquareSize];
+		fields = new byte[length * length];
+		lineMasks = new int[length];
+		rowMasks = new int[length];
+		squareMasks = new int[length];
+	}
+
+	/**
+	 * Creates a copy of the passed grid.
+	 * @param other the grid to copy
+	 */
+	public Grid(final Grid other) {
+		this(other.squareSize);
+		copyFrom(other);
+	}
+
+	// static Methods
+
+	/**
+	 * Returns the index of the square containing the passed field of a sodoku with 9x9 fields.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @return the index of the square
+	 */
+	public static int getSquare(final int line, final int row) {
+		return line / SodokuGenerator.SQUARE_STEPS * SodokuGenerator.SQUARE_STEPS
+				+ row / SodokuGenerator.SQUARE_STEPS;
+	}
+
+	/**
+	 * Converts a string element of the sodoku to its byte value.
+	 * @param element the element as string, might be null
+	 * @return the element (1-9), EMPTY if it's no valid element
+	 */
+	public static byte toElement(final String element) {
+		if (element == null || element.length() != 1)
+			return EMPTY;
+		final char chr = element.charAt(0);
+		if (chr < '1' || chr > '9')
+			return EMPTY;
+		return (byte) (chr - '0');
+	}
+
+	/**
+	 * Converts an element to its string representation.
+	 * @param element the element (1-9)
+	 * @return the element as string, null for EMPTY
+	 */
+	public static String toString(final int element) {
+		if (element == EMPTY)
+			return null;
+		return SodokuGenerator.POSSIBLE_ELEMENTS[element - 1];
+	}
+
+	// Methods
+
+	/**
+	 * Returns the element of a field.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @return the element (1 - length), EMPTY if the field is empty
+	 */
+	public byte get(final int line, final int row) {
+		return fields[line * length + row];
+	}
+
+	/**
+	 * Returns the elements, which could be placed in a field.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @return the candidates as bitmask
+	 */
+	public int getCandidates(final int line, final int row) {
+		return allElements & ~(lineMasks[line] | rowMasks[row] | squareMasks[squares[line * length + row]]);
+	}
+
+	/**
+	 * Checks if an element could be placed in an empty field,
+	 * without breaking the rules.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element (1 - length)
+	 * @return true, if the element could be placed
+	 */
+	public boolean canPlace(final int line, final int row, final int element) {
+		return get(line, row) == EMPTY && element >= 1 && element <= length
+				&& (getCandidates(line, row) & 1 << (element - 1)) != 0;
+	}
+
+	/**
+	 * Places an element in an empty field, if it doesn't break the rules.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element (1 - length)
+	 * @return true, if the element were placed
+	 */
+	public boolean place(final int line, final int row, final int element) {
+		if (!canPlace(line, row, element))
+			return false;
+		set(line, row, element);
+		return true;
+	}
+
+	/**
+	 * Sets the element of an empty field, even if it breaks the rules.
+	 * The bitmasks only mark the element as used then,
+	 * so use the test methods to check the grid afterwards.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element (1 - length), EMPTY to keep the field empty
+	 */
+	public void set(final int line, final int row, final int element) {
+		if (element == EMPTY)
+			return;
+		final int bit = 1 << (element - 1);
+		final int field = line * length + row;
+		fields[field] = (byte) element;
+		lineMasks[line] |= bit;
+		rowMasks[row] |= bit;
+		squareMasks[squares[field]] |= bit;
+		filledCount++;
+	}
+
+	/**
+	 * Removes the element of a field, which were placed before.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 */
+	public void remove(final int line, final int row) {
+		final int element = get(line, row);
+		if (element == EMPTY)
+			return;
+		final int bit = ~(1 << (element - 1));
+		final int field = line * length + row;
+		fields[field] = EMPTY;
+		lineMasks[line] &= bit;
+		rowMasks[row] &= bit;
+		squareMasks[squares[field]] &= bit;
+		filledCount--;
+	}
+
+	/**
+	 * Removes all elements.
+	 */
+	public void clear() {
+		Arrays.fill(fields, EMPTY);
+		Arrays.fill(lineMasks, 0);
+		Arrays.fill(rowMasks, 0);
+		Arrays.fill(squareMasks, 0);
+		filledCount = 0;
+	}
+
+	/**
+	 * Replaces the content of this grid by the content of the passed one.
+	 * @param other the grid to copy, with the same square size
+	 * @throws IllegalArgumentException if the square sizes differ
+	 */
+	public final void copyFrom(final Grid other) {
+		if (other.squareSize != squareSize)
+			throw new IllegalArgumentException("Can't copy a grid with square size " + other.squareSize
+					+ " to one with square size " + squareSize);
+		System.arraycopy(other.fields, 0, fields, 0, fields.length);
+		System.arraycopy(other.lineMasks, 0, lineMasks, 0, length);
+		System.arraycopy(other.rowMasks, 0, rowMasks, 0, length);
+		System.arraycopy(other.squareMasks, 0, squareMasks, 0, length);
+		filledCount = other.filledCount;
+	}
+
+	/**
+	 * Checks if a line contains no element twice.
+	 * @param line the line to check
+	 * @return true, if the line is correct so far
+	 */
+	public boolean testLine(final int line) {
+		int used = 0;
+		for (int i = 0; i < length; i++) {
+			final int element = get(line, i);
+			if (element != EMPTY) {
+				if ((used & 1 << element) != 0)
+					return false;
+				used |= 1 << element;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a row contains no element twice.
+	 * @param row the row to check
+	 * @return true, if the row is correct so far
+	 */
+	public boolean testRow(final int row) {
+		int used = 0;
+		for (int i = 0; i < length; i++) {
+			final int element = get(i, row);
+			if (element != EMPTY) {
+				if ((used & 1 << element) != 0)
+					return false;
+				used |= 1 << element;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a square contains no element twice.
+	 * @param square the index of the square to check
+	 * @return true, if the square is correct so far
+	 */
+	public boolean testSquare(final int square) {
+		final int firstLine = square / squareSize * squareSize;
+		final int firstRow = square % squareSize * squareSize;
+		int used = 0;
+		for (int i = firstLine; i < firstLine + squareSize; i++)
+			for (int j = firstRow; j < firstRow + squareSize; j++) {
+				final int element = get(i, j);
+				if (element != EMPTY) {
+					if ((used & 1 << element) != 0)
+						return false;
+					used |= 1 << element;
+				}
+			}
+		return true;
+	}
+
+	/**
+	 * Checks if the grid is complete and every line, row and square contains every element once.
+	 * Reads the fields instead of the bitmasks, so elements set against the rules are found.
+	 * @return true, if the grid is a solved sodoku
+	 */
+	public boolean isValid() {
+		if (!isFull())
+			return false;
+		for (int i = 0; i < length; i++)
+			if (!testLine(i) || !testRow(i) || !testSquare(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Creates a text representation of the grid, including a numbered headline.
+	 * @param number number to include in headline for numbering
+	 * @return a string representation of the grid
+	 */
+	public String getStringRepresentation(final int number) {
+		return "Sodoku number " + number + " (" + length + "x" + length + "):\n" + toString() + "\n";
+	}
+
+	// Getter
+
+	/**
+	 * Returns the count of lines (and rows) of a square.
+	 * @return the square size
+	 */
+	public int getSquareSize() {
+		return squareSize;
+	}
+
+	/**
+	 * Returns the count of fields per line, which is the count of lines and of elements.
+	 * @return the length of a line
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the used elements of a line.
+	 * @param line the line
+	 * @return the used elements as bitmask
+	 */
+	public int getLineMask(final int line) {
+		return lineMasks[line];
+	}
+
+	/**
+	 * Returns the used elements of a row.
+	 * @param row the row
+	 * @return the used elements as bitmask
+	 */
+	public int getRowMask(final int row) {
+		return rowMasks[row];
+	}
+
+	/**
+	 * Returns the used elements of a square.
+	 * @param square the index of the square
+	 * @return the used elements as bitmask
+	 */
+	public int getSquareMask(final int square) {
+		return squareMasks[square];
+	}
+
+	/**
+	 * Returns the count of not empty fields.
+	 * @return the count of filled fields
+	 */
+	public int getFilledCount() {
+		return filledCount;
+	}
+
+	/**
+	 * Checks if all fields are filled.
+	 * @return true, if no field is empty
+	 */
+	public boolean isFull() {
+		return filledCount == fields.length;
+	}
+
+	// Overrides
+
+	@Override
+	public String toString() {
+		final StringBuilder sBuilder = new StringBuilder(fields.length * 4);
+		for (int i = 0; i < length; i++) {
+			for (int j = 0; j < length; j++) {
+				if (j > 0)
+					sBuilder.append(", ");
+				sBuilder.append(get(i, j));
+			}
+			sBuilder.append('\n');
+		}
+		return sBuilder.toString();
+	}
+}
@@ -0,0 +1,20 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy used by the SodokuGenerator to fill a complete sodoku.
+ * @author Nicolai
+ *
+ */
+public interface GridEngine {
+
+	/**
+	 * Generates a new, completely filled sodoku.
+	 * All random decisions are taken from the passed random,
+	 * so the same random state always leads to the same sodoku.
+	 * @param random used for all random decisions
+	 * @return the generated sodoku
+	 */
+	Sodoku generate(SplittableRandom random);
+}
@@ -0,0 +1,145 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates new sodokus out of a complete one, without searching again.
+ * Relabeling the elements, swapping lines inside their band, swapping the bands,
+ * the same for rows and stacks, and transposing keep a sodoku valid,
+ * so a single searched sodoku leads to more than a trillion different ones.
+ * Keeps the last base sodoku, so it's only searched once for all of its transforms.
+ * @author Nicolai
+ *
+ */
+public class GridTransformer {
+
+	// Attributes
+
+	/**
+	 * The last base sodoku.
+	 */
+	private final Grid base = new Grid();
+	/**
+	 * The number of the last base sodoku.
+	 */
+	private long baseNumber = Long.MIN_VALUE;
+	/**
+	 * The grid the transformed sodoku is created in.
+	 */
+	private final Grid target = new Grid();
+	/**
+	 * Line of the base sodoku, every line is taken from.
+	 */
+	private final int[] lineOrder = new int[SodokuGenerator.LINE_COUNT];
+	/**
+	 * Row of the base sodoku, every row is taken from.
+	 */
+	private final int[] rowOrder = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * The new element for every element (index 0 stays empty).
+	 */
+	private final int[] elements = new int[SodokuGenerator.LINE_LENGTH + 1];
+	/**
+	 * Order of the bands or stacks, reused for both.
+	 */
+	private final int[] blockOrder = new int[SodokuGenerator.SQUARE_STEPS];
+
+	// Methods
+
+	/**
+	 * Checks if the passed number is the one of the last base sodoku.
+	 * @param number the number of the base sodoku
+	 * @return true, if the base sodoku doesn't need to be searched again
+	 */
+	public boolean hasBase(final long number) {
+		return baseNumber == number;
+	}
+
+	/**
+	 * Keeps the passed sodoku as base for the following transforms.
+	 * @param number the number of the base sodoku
+	 * @param sodoku the complete sodoku
+	 */
+	public void setBase(final long number, final Sodoku sodoku) {
+		base.copyFrom(sodoku.getGrid());
+		baseNumber = number;
+	}
+
+	/**
+	 * Returns a copy of the last base sodoku.
+	 * @return the base sodoku
+	 */
+	public Sodoku getBase() {
+		return new Sodoku(base);
+	}
+
+	/**
+	 * Creates a random transform of the last base sodoku.
+	 * @param random used to choose the transform
+	 * @return the transformed sodoku
+	 */
+	public Sodoku transform(final SplittableRandom random) {
+		transform(base, random, target);
+		return new Sodoku(target);
+	}
+
+	/**
+	 * Writes a random transform of the passed sodoku to result.
+	 * @param source the complete sodoku to transform
+	 * @param random used to choose the transform
+	 * @param result the grid to write the transformed sodoku to
+	 */
+	public void transform(final Grid source, final SplittableRandom random, final Grid result) {
+		shuffleBlocks(lineOrder, random);
+		shuffleBlocks(rowOrder, random);
+		elements[0] = Grid.EMPTY;
+		for (int i = 1; i < elements.length; i++)
+			elements[i] = i;
+		shuffle(elements, 1, SodokuGenerator.LINE_LENGTH, random);
+		final boolean transpose = random.nextBoolean();
+
+		result.clear();
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				final int element = elements[source.get(lineOrder[i], rowOrder[j])];
+				if (transpose)
+					result.set(j, i, element);
+				else
+					result.set(i, j, element);
+			}
+	}
+
+	/**
+	 * Writes a random order of the lines or rows to order,
+	 * by shuffling the blocks of three and the three inside every block.
+	 * @param order array to write the order to
+	 * @param random used to shuffle
+	 */
+	private void shuffleBlocks(final int[] order, final SplittableRandom random) {
+		for (int i = 0; i < SodokuGenerator.SQUARE_STEPS; i++)
+			blockOrder[i] = i;
+		shuffle(blockOrder, 0, SodokuGenerator.SQUARE_STEPS, random);
+		for (int i = 0; i < order.length; i++)
+			order[i] = blockOrder[i / SodokuGenerator.SQUARE_STEPS] * SodokuGenerator.SQUARE_STEPS
+					+ i % SodokuGenerator.SQUARE_STEPS;
+		for (int i = 0; i < order.length; i += SodokuGenerator.SQUARE_STEPS)
+			shuffle(order, i, SodokuGenerator.SQUARE_STEPS, random);
+	}
+
+	/**
+	 * Shuffles a part of the passed array.
+	 * @param arr the array to shuffle
+	 * @param start the first index to shuffle
+	 * @param length count of elements to shuffle
+	 * @param random used to shuffle
+	 */
+	private static void shuffle(final int[] arr, final int start, final int length,
+			final SplittableRandom random) {
+		for (int i = length - 1; i > 0; i--) {
+			final int j = start + random.nextInt(i + 1);
+			final int tmp = arr[start + i];
+			arr[start + i] = arr[j];
+			arr[j] = tmp;
+		}
+	}
+}
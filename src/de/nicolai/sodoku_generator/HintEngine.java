@@ -0,0 +1,199 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Finds the next field, which can be filled by logic, and the technique needed for it.
+ * The candidates are kept as bitmasks by a DifficultyRater and only updated,
+ * when an element is placed or a technique removes candidates,
+ * so a hint only costs the steps since the last hint.
+ * Doesn't need Swing, so it can be used for many games at once, one engine per game.
+ * @author Nicolai
+ *
+ */
+public class HintEngine {
+
+	// Attributes
+
+	/**
+	 * Keeps the candidates and applies the techniques.
+	 */
+	private final DifficultyRater rater = new DifficultyRater();
+	/**
+	 * The solution, used to reveal a field if no technique makes progress.
+	 */
+	private final Grid solution;
+	/**
+	 * Hints found but not placed yet, for every field.
+	 */
+	private final Hint[] found = new Hint[Grid.FIELD_COUNT];
+
+	// Constructor
+
+	/**
+	 * Creates an engine for a sodoku.
+	 * @param known the grid containing the given and correctly filled elements
+	 * @param hSolution the solution of the sodoku
+	 */
+	public HintEngine(final Grid known, final Grid hSolution) {
+		super();
+		solution = new Grid(hSolution);
+		rater.init(known);
+	}
+
+	// Methods
+
+	/**
+	 * Adds an element filled in by the player.
+	 * Elements not matching the solution are ignored, so every hint stays correct.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element (1-9)
+	 */
+	public void place(final int line, final int row, final int element) {
+		if (element != solution.get(line, row))
+			return;
+		final int field = line * SodokuGenerator.LINE_LENGTH + row;
+		rater.placeKnown(field, element);
+		found[field] = null;
+	}
+
+	/**
+	 * Returns the next field, which can be filled.
+	 * Hints not placed yet are returned again,
+	 * otherwise the techniques are applied until a field is filled.
+	 * If no technique makes progress, the empty field with the fewest candidates is revealed.
+	 * @return the hint, null if all fields are known
+	 */
+	public Hint nextHint() {
+		for (final Hint hint:found)
+			if (hint != null)
+				return hint;
+
+		DifficultyRater.Technique hardest = null;
+		while (!rater.isComplete()) {
+			final DifficultyRater.Technique technique = rater.step();
+			if (technique == null)
+				return reveal();
+			if (hardest == null || technique.compareTo(hardest) > 0)
+				hardest = technique;
+			final int field = rater.getLastPlaced();
+			if (field >= 0)
+				return found(field, hardest);
+		}
+		return null;
+	}
+
+	/**
+	 * Fills the empty field with the fewest candidates from the solution.
+	 * @return the hint for the field
+	 */
+	private Hint reveal() {
+		int best = -1;
+		int bestCount = Integer.MAX_VALUE;
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			if (rater.getElement(i) == Grid.EMPTY && Integer.bitCount(rater.getCandidates(i)) < bestCount) {
+				best = i;
+				bestCount = Integer.bitCount(rater.getCandidates(i));
+			}
+		rater.placeKnown(best, solution.get(best / SodokuGenerator.LINE_LENGTH, best % SodokuGenerator.LINE_LENGTH));
+		return found(best, null);
+	}
+
+	/**
+	 * Remembers the hint for a field filled by the rater.
+	 * @param field the index of the field
+	 * @param technique the hardest technique needed, null if revealed
+	 * @return the hint
+	 */
+	private Hint found(final int field, final DifficultyRater.Technique technique) {
+		final Hint hint = new Hint(field / SodokuGenerator.LINE_LENGTH, field % SodokuGenerator.LINE_LENGTH,
+				rater.getElement(field), technique);
+		found[field] = hint;
+		return hint;
+	}
+
+	// inner classes
+
+	/**
+	 * A field to fill next and the reason for it.
+	 * @author Nicolai
+	 *
+	 */
+	public static class Hint {
+		/**
+		 * The line of the field.
+		 */
+		private final int line;
+		/**
+		 * The row of the field.
+		 */
+		private final int row;
+		/**
+		 * The element of the field (1-9).
+		 */
+		private final int element;
+		/**
+		 * The hardest technique needed, null if the field were revealed from the solution.
+		 */
+		private final DifficultyRater.Technique technique;
+
+		/**
+		 * Creates a hint.
+		 * @param hLine the line of the field
+		 * @param hRow the row of the field
+		 * @param hElement the element of the field
+		 * @param hTechnique the hardest technique needed, null if revealed
+		 */
+		public Hint(final int hLine, final int hRow, final int hElement, final DifficultyRater.Technique hTechnique) {
+			line = hLine;
+			row = hRow;
+			element = hElement;
+			technique = hTechnique;
+		}
+
+		/**
+		 * Returns the line of the field.
+		 * @return the line
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * Returns the row of the field.
+		 * @return the row
+		 */
+		public int getRow() {
+			return row;
+		}
+
+		/**
+		 * Returns the element of the field.
+		 * @return the element (1-9)
+		 */
+		public int getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the value of the field.
+		 * @return the element as string
+		 */
+		public String getValue() {
+			return Grid.toString(element);
+		}
+
+		/**
+		 * Returns the hardest technique needed for the field.
+		 * @return the technique, null if the field were revealed from the solution
+		 */
+		public DifficultyRater.Technique getTechnique() {
+			return technique;
+		}
+
+		@Override
+		public String toString() {
+			return (technique == null ? "Revealed" : technique.toString()) + ": " + getValue()
+					+ " in line " + (line + 1) + ", row " + (row + 1);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package de.nicolai.sodoku_generator;
+
+/**
+ * Set of 128 bit keys, kept as pairs of longs in a single array.
+ * Uses open addressing with linear probing, so adding a key doesn't create objects
+ * and tens of millions of keys only need 16 bytes each, plus the free slots.
+ * The key 0, 0 marks free slots, so it's kept separately.
+ * @author Nicolai
+ *
+ */
+public class KeySet {
+
+	// Constants
+
+	/**
+	 * Count of slots of a new set.
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 10;
+	/**
+	 * Max count of slots, limited by the max array length.
+	 */
+	private static final int MAX_CAPACITY = 1 << 29;
+
+	// Attributes
+
+	/**
+	 * The keys, the first half at even and the second half at odd indexes.
+	 */
+	private long[] keys = new long[2 * INITIAL_CAPACITY];
+	/**
+	 * Count of keys in keys.
+	 */
+	private int size;
+	/**
+	 * Whether the key 0, 0 were added.
+	 */
+	private boolean containsZero;
+
+	// Methods
+
+	/**
+	 * Adds a key, if it isn't contained already.
+	 * @param high the first half of the key
+	 * @param low the second half of the key
+	 * @return true, if the key were added, false if it were contained already
+	 */
+	public boolean add(final long high, final long low) {
+		if (high == 0 && low == 0) {
+			final boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+		final int mask = keys.length / 2 - 1;
+		for (int slot = (int) SodokuGenerator.mix(high ^ low) & mask;; slot = slot + 1 & mask) {
+			final long slotHigh = keys[2 * slot];
+			final long slotLow = keys[2 * slot + 1];
+			if (slotHigh == high && slotLow == low)
+				return false;
+			if (slotHigh == 0 && slotLow == 0) {
+				keys[2 * slot] = high;
+				keys[2 * slot + 1] = low;
+				if (++size > keys.length / 2 / 4 * 3) // keep a quarter of the slots free
+					grow();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Doubles the count of slots and adds the keys again.
+	 */
+	private void grow() {
+		final int capacity = keys.length / 2;
+		if (capacity >= MAX_CAPACITY)
+			throw new IllegalStateException("Too many keys.");
+		final long[] old = keys;
+		keys = new long[4 * capacity];
+		final int mask = 2 * capacity - 1;
+		for (int i = 0; i < old.length; i += 2)
+			if (old[i] != 0 || old[i + 1] != 0) {
+				int slot = (int) SodokuGenerator.mix(old[i] ^ old[i + 1]) & mask;
+				while (keys[2 * slot] != 0 || keys[2 * slot + 1] != 0)
+					slot = slot + 1 & mask;
+				keys[2 * slot] = old[i];
+				keys[2 * slot + 1] = old[i + 1];
+			}
+	}
+
+	/**
+	 * Returns the count of keys.
+	 * @return the count of added keys
+	 */
+	public int size() {
+		return containsZero ? size + 1 : size;
+	}
+}
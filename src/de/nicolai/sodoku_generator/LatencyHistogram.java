@@ -0,0 +1,156 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, which can be recorded from many threads.
+ * Every power of two is split into SUB_BUCKETS buckets of equal width,
+ * so every bucket is narrower than 1 / SUB_BUCKETS of its values,
+ * no matter how big they are.
+ * @author Nicolai
+ *
+ */
+public class LatencyHistogram {
+
+	// Constants
+
+	/**
+	 * Log 2 of the count of buckets per power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+	/**
+	 * Count of buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * Count of buckets for all positive longs.
+	 */
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	// Attributes
+
+	/**
+	 * Count of values in every bucket.
+	 */
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+	/**
+	 * Count of all values.
+	 */
+	private final LongAdder count = new LongAdder();
+	/**
+	 * Sum of all values.
+	 */
+	private final LongAdder sum = new LongAdder();
+	/**
+	 * The biggest value.
+	 */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	// Constructor
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		super();
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	// Methods
+
+	/**
+	 * Records a value.
+	 * @param nanos the duration in nanoseconds, negative values count as 0
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(nanos, 0);
+		buckets[getBucket(value)].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Returns the bucket of a value.
+	 * The values below 2 * SUB_BUCKETS get a bucket each,
+	 * above every power of two is split into SUB_BUCKETS buckets.
+	 * @param value the value
+	 * @return the index of the bucket
+	 */
+	private static int getBucket(final long value) {
+		// count of low bits dropped, so SUB_BUCKET_BITS + 1 bits are left
+		final int shift = Math.max(0, Long.SIZE - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(value));
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the biggest value of a bucket.
+	 * @param bucket the index of the bucket
+	 * @return the biggest value of the bucket
+	 */
+	private static long getUpperBound(final int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		final int shift = bucket / SUB_BUCKETS - 1;
+		return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the value, which isn't exceeded by the passed percentage of values.
+	 * @param percent the percentage (0 - 100)
+	 * @return the upper bound of the bucket containing the percentile, 0 if empty
+	 */
+	public long getPercentile(final double percent) {
+		final long total = count.sum();
+		if (total == 0)
+			return 0;
+		final long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets[i].sum();
+			if (seen >= rank)
+				return Math.min(getUpperBound(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void reset() {
+		for (final LongAdder bucket:buckets)
+			bucket.reset();
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	// Getter
+
+	/**
+	 * Returns the count of recorded values.
+	 * @return the count of values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 * @return the mean, 0 if empty
+	 */
+	public double getMean() {
+		final long total = count.sum();
+		return total == 0 ? 0 : (double) sum.sum() / total;
+	}
+
+	/**
+	 * Returns the biggest recorded value.
+	 * @return the biggest value, 0 if empty
+	 */
+	public long getMax() {
+		return max.get();
+	}
+}
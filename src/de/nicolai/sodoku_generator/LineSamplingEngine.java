@@ -0,0 +1,140 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates sodokus by adding random lines out of all possible lines,
+ * until the sodoku is complete.
+ * Only lines fitting into the sodoku are drawn, all with the same probability:
+ * the fitting lines are counted for every set of elements used in the first rows,
+ * which numbers them in lexicographic order, so a random number picks one of them.
+ * If no line fits, only the lines of the band are removed,
+ * the whole sodoku is only started again after MAX_BAND_FAILURES.
+ * @author Nicolai
+ *
+ */
+public class LineSamplingEngine implements GridEngine {
+
+	// Constants
+
+	/**
+	 * Count of removed bands, before the sodoku is started again.
+	 */
+	private static final int MAX_BAND_FAILURES = 20;
+	/**
+	 * Count of sets of elements.
+	 */
+	private static final int ELEMENT_SETS = 1 << SodokuGenerator.LINE_LENGTH;
+
+	// Attributes
+
+	/**
+	 * Buffer for the line to add next, reused to avoid allocations.
+	 */
+	private final String[] line = new String[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Counts the lines, resets and failures of the last line.
+	 */
+	private final GeneratorStats stats = GeneratorStats.get();
+	/**
+	 * Elements allowed in every row of the next line, as bitmasks.
+	 */
+	private final int[] allowed = new int[SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of fitting ends of the line, for every set of elements used in the first rows.
+	 * The rows are filled in order, so the count of used elements is the next row.
+	 */
+	private final int[] endCounts = new int[ELEMENT_SETS];
+
+	// Methods
+
+	/**
+	 * Generates a new sodoku.
+	 * @param random used to choose the lines
+	 * @return the generated sodoku
+	 */
+	@Override
+	public Sodoku generate(final SplittableRandom random) {
+		// Generate sodokus
+		final Sodoku sodoku = new Sodoku();
+
+		// find solution
+		int bandFailures = 0;
+		while (!sodoku.isComplete()) {
+			final int i = sodoku.getLineCount();
+			stats.addLineAttempts(i, 1);
+			if (sampleLine(sodoku.getGrid(), i, random, line)) {
+				sodoku.addLine(line);
+				continue;
+			}
+
+			// dead end: remove the band, or the band before if the band has no line yet
+			if (i == SodokuGenerator.LINE_COUNT - 1)
+				stats.addLastLineFailure();
+			if (++bandFailures > MAX_BAND_FAILURES) {
+				stats.addReset();
+				sodoku.reset();
+				bandFailures = 0;
+			} else {
+				stats.addBandBacktrack();
+				final int bandStart = (i == 0 ? 0 : i - 1) / SodokuGenerator.SQUARE_STEPS
+						* SodokuGenerator.SQUARE_STEPS;
+				while (sodoku.getLineCount() > bandStart)
+					sodoku.removeLastLine();
+			}
+		}
+		return sodoku;
+	}
+
+	/**
+	 * Draws one of the lines fitting as line i into the grid,
+	 * all with the same probability.
+	 * @param grid the grid containing the lines before i
+	 * @param i the index of the line
+	 * @param random used to draw the line
+	 * @param target array to write the elements of the line to
+	 * @return false, if no line fits
+	 */
+	boolean sampleLine(final Grid grid, final int i, final SplittableRandom random, final String... target) {
+		final int count = countLines(grid, i);
+		if (count == 0)
+			return false;
+
+		// walk down the lexicographic order, skipping the lines before the drawn one
+		int rest = random.nextInt(count);
+		int used = 0;
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+			for (int free = allowed[j] & ~used; free != 0; free &= free - 1) {
+				final int bit = free & -free;
+				final int lines = endCounts[used | bit];
+				if (rest < lines) {
+					used |= bit;
+					target[j] = SodokuGenerator.POSSIBLE_ELEMENTS[Integer.numberOfTrailingZeros(bit)];
+					break;
+				}
+				rest -= lines;
+			}
+		return true;
+	}
+
+	/**
+	 * Counts the lines fitting as line i into the grid
+	 * and fills endCounts on the way.
+	 * @param grid the grid containing the lines before i
+	 * @param i the index of the line
+	 * @return the count of fitting lines
+	 */
+	private int countLines(final Grid grid, final int i) {
+		for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+			allowed[j] = Grid.ALL_ELEMENTS & ~grid.getRowMask(j) & ~grid.getSquareMask(Grid.getSquare(i, j));
+		// bigger sets first, since adding an element makes the set bigger
+		endCounts[ELEMENT_SETS - 1] = 1;
+		for (int used = ELEMENT_SETS - 2; used >= 0; used--) {
+			int lines = 0;
+			for (int free = allowed[Integer.bitCount(used)] & ~used; free != 0; free &= free - 1)
+				lines += endCounts[used | free & -free];
+			endCounts[used] = lines;
+		}
+		return endCounts[0];
+	}
+}
@@ -7,8 +7,15 @@ package de.nicolai.sodoku_generator;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Start of program.
@@ -22,10 +29,36 @@ public final class Main {
 	 * Used as help message, if -h is passed.
 	 */
 	private static final String HELP_INFORMATION = "Call like: \n"
-				+ "SodokuCreator.jar [-o <OUTFILE>, -c COUNT]\n"
+				+ "SodokuCreator.jar [-o <OUTFILE>, -c COUNT, -j THREADS, -p PERCENT, -m, -b, -l, -t TRANSFORMS, -u, --seed SEED, --first NUMBER, --stats, --server PORT, --pool SIZE, -s SQUARE, --solve FILE]\n"
 				+ "\t-h          - show this help\n"
 				+ "\t-c COUNT    - count of sodokus to generate\n"
-				+ "\t-o OUTFILE  - redirect output to OUTFILE";
+				+ "\t-o OUTFILE  - redirect output to OUTFILE\n"
+				+ "\t-j THREADS  - count of threads to generate with (default: count of processors)\n"
+				+ "\t-p PERCENT   - generate rated puzzles with unique solution, PERCENT of fields empty\n"
+				+ "\t-m          - generate rated minimal puzzles, no given element can be removed from (about 20-24 given)\n"
+				+ "\t-b          - write OUTFILE in the compact binary format (needs -o and COUNT >= 2)\n"
+				+ "\t-l          - use the (slower) line sampling engine\n"
+				+ "\t-t TRANSFORMS - create TRANSFORMS sodokus out of every searched one, by swapping and relabeling\n"
+				+ "\t-u          - skip sodokus equal to a generated one, up to relabeling, swapping and transposing\n"
+				+ "\t              (with -t only for puzzles of -p or -m, else every transform would be skipped)\n"
+				+ "\t--seed SEED - generate the same sodokus for the same SEED\n"
+				+ "\t--first NUMBER - start numbering at NUMBER, to split the sodokus of a SEED\n"
+				+ "\t--stats     - print the counters of the generator at the end (needs COUNT >= 2, also readable by JMX)\n"
+				+ "\t--server PORT - serve rated puzzles over HTTP on PORT, generated by THREADS threads\n"
+				+ "\t--pool SIZE - count of ready puzzles per difficulty for --server (default: 100)\n"
+				+ "\t-s SQUARE   - generate sodokus with SQUARE x SQUARE fields per square (2-5, default: 3),\n"
+				+ "\t              only with -c, -o, --seed and --first\n"
+				+ "\t--solve FILE - solve the puzzles of FILE (- for stdin), one line of 81 characters per puzzle,\n"
+				+ "\t              and write a line per puzzle: the solution, INVALID, UNSOLVABLE or MULTIPLE";
+
+	/**
+	 * Count of ready puzzles per difficulty, if --pool isn't passed.
+	 */
+	private static final int DEFAULT_POOL_SIZE = 100;
+	/**
+	 * Count of idle keep-alive connections kept open by --server, so polling clients don't need to reconnect.
+	 */
+	private static final int MAX_IDLE_CONNECTIONS = 20_000;
 
 	private Main() { }
 
@@ -39,8 +72,33 @@ public final class Main {
 		boolean outParmExist = false;
 		boolean helpParmExist = false;
 		boolean countParamExist = false;
+		boolean threadParamExist = false;
+		boolean probabilityParamExist = false;
+		boolean lineSampling = false;
+		boolean minimal = false;
+		boolean binary = false;
+		boolean skipDuplicates = false;
+		boolean printStats = false;
+		boolean serverParamExist = false;
+		boolean poolParamExist = false;
+		boolean seedParamExist = false;
+		boolean seeded = false;
+		boolean firstParamExist = false;
+		boolean transformParamExist = false;
+		boolean sizeParamExist = false;
+		boolean solveParamExist = false;
 		String outFile = "";
+		String solveFile = null;
 		int count = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean threadsPassed = false;
+		double puzzleProbability = -1;
+		long seed = 0;
+		int firstNumber = 1;
+		int transforms = 0;
+		int port = -1;
+		int poolSize = DEFAULT_POOL_SIZE;
+		int squareSize = SodokuGenerator.SQUARE_STEPS;
 
 		// get arguments
 		for (final String arg:args)
@@ -50,9 +108,66 @@ public final class Main {
 				countParamExist = true;
 			else if ("-o".equals(arg))
 				outParmExist = true;
+			else if ("-j".equals(arg))
+				threadParamExist = true;
+			else if ("-p".equals(arg))
+				probabilityParamExist = true;
+			else if ("-m".equals(arg))
+				minimal = true;
+			else if ("-b".equals(arg))
+				binary = true;
+			else if ("-l".equals(arg))
+				lineSampling = true;
+			else if ("-u".equals(arg))
+				skipDuplicates = true;
+			else if ("-t".equals(arg))
+				transformParamExist = true;
+			else if ("-s".equals(arg))
+				sizeParamExist = true;
+			else if ("--solve".equals(arg))
+				solveParamExist = true;
+			else if ("--seed".equals(arg))
+				seedParamExist = true;
+			else if ("--stats".equals(arg))
+				printStats = true;
+			else if ("--server".equals(arg))
+				serverParamExist = true;
+			else if ("--pool".equals(arg))
+				poolParamExist = true;
+			else if ("--first".equals(arg))
+				firstParamExist = true;
 			else if (countParamExist) { // first argument after -c
 				count = Integer.parseInt(arg);
 				countParamExist = false;
+			} else if (threadParamExist) { // first argument after -j
+				threads = Integer.parseInt(arg);
+				threadsPassed = true;
+				threadParamExist = false;
+			} else if (probabilityParamExist) { // first argument after -p
+				puzzleProbability = Double.parseDouble(arg);
+				probabilityParamExist = false;
+			} else if (transformParamExist) { // first argument after -t
+				transforms = Integer.parseInt(arg);
+				transformParamExist = false;
+			} else if (sizeParamExist) { // first argument after -s
+				squareSize = Integer.parseInt(arg);
+				sizeParamExist = false;
+			} else if (solveParamExist) { // first argument after --solve
+				solveFile = arg;
+				solveParamExist = false;
+			} else if (seedParamExist) { // first argument after --seed
+				seed = Long.parseLong(arg);
+				seeded = true;
+				seedParamExist = false;
+			} else if (serverParamExist) { // first argument after --server
+				port = Integer.parseInt(arg);
+				serverParamExist = false;
+			} else if (poolParamExist) { // first argument after --pool
+				poolSize = Integer.parseInt(arg);
+				poolParamExist = false;
+			} else if (firstParamExist) { // first argument after --first
+				firstNumber = Integer.parseInt(arg);
+				firstParamExist = false;
 			} else if (outParmExist && "".equals(outFile)) { // first argument after -o
 				outFile = arg;
 				outParmExist = false;
@@ -62,21 +177,82 @@ public final class Main {
 		else if (!"".equals(outFile))
 			println("Output directed to \"", outFile, "\"");
 
+		// starting the platform MBean server takes about 300 ms, so only for runs reading the stats
+		if (printStats || port >= 0)
+			GeneratorStats.register();
 
 		// Create sodoku
-		final SodokuGenerator sGenerator = new SodokuGenerator(true); // including initial call of generateLines
+		final Supplier<GridEngine> engineFactory = lineSampling ? LineSamplingEngine::new : BacktrackingEngine::new;
+		final SodokuGenerator sGenerator = seeded
+				? new SodokuGenerator(engineFactory, seed) : new SodokuGenerator(engineFactory);
 
-		if (count >= 2) { // create sodokus
-			// generate needed count of sodokus
-			for (int i = 0; i < count; i++)
-				sGenerator.generateSodoku();
+		sGenerator.setPuzzleProbability(puzzleProbability);
+		sGenerator.setMinimalPuzzles(minimal);
+		sGenerator.setFirstNumber(firstNumber);
+		sGenerator.setTransforms(transforms);
+		sGenerator.setSkipDuplicates(skipDuplicates);
 
-			// Write to outFile or Console, if outFile not passed.
+		if (squareSize != SodokuGenerator.SQUARE_STEPS && (threadsPassed || puzzleProbability >= 0 || minimal
+				|| binary || skipDuplicates || transforms != 0 || lineSampling || printStats || port >= 0
+				|| solveFile != null)) { // only the full sodokus of other sizes are supported
+			println("Error, -s can't be combined with -j, -p, -m, -b, -u, -t, -l, --stats, --server or --solve.");
+		} else if (transforms != 0 && skipDuplicates && puzzleProbability < 0 && !minimal) {
+			println("Error, -t with -u needs -p or -m, every transform of a complete sodoku would be skipped.");
+		} else if (binary && ("".equals(outFile) || solveFile != null || port >= 0 || count < 2)) {
+			println("Error, -b needs -o and -c with a COUNT of at least 2, the binary format is only written to files.");
+		} else if (printStats && (solveFile != null || port >= 0 || count < 2)) {
+			println("Error, --stats needs -c with a COUNT of at least 2, the counters are only printed after generating.");
+		} else if (solveFile != null) { // solve puzzles instead of generating
+			solvePuzzles(solveFile, outFile, threads);
+		} else if (port >= 0) { // serve puzzles, until the process is stopped
+			try {
+				configureHttpServer();
+				final PuzzleServer server = new PuzzleServer(new PuzzlePool(poolSize, threads, engineFactory), port);
+				server.start();
+				Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+				println("Serving puzzles on port ", Integer.toString(server.getPort()),
+						server.usesVirtualThreads() ? " (virtual threads)" : "");
+			} catch (IOException e) {
+				println("Error, couldn't listen on port ", Integer.toString(port), ".");
+			}
+		} else if (squareSize != SodokuGenerator.SQUARE_STEPS) { // create sodokus of another size
+			if ("".equals(outFile)) {
+				generateSized(squareSize, count, seeded ? seed : new SplittableRandom().nextLong(), firstNumber,
+						Main::println);
+			} else {
+				try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outFile))) {
+					generateSized(squareSize, count, seeded ? seed : new SplittableRandom().nextLong(), firstNumber,
+							arg -> {
+								try {
+									writer.write(arg);
+								} catch (IOException e) {
+									println("Error, couldn't write to file.");
+								}
+							});
+				} catch (IOException e) {
+					println("Error, file not found.");
+				}
+			}
+		} else if (count >= 2) { // create sodokus
+			// Generate and write each sodoku to outFile or Console, if outFile not passed.
 			if ("".equals(outFile)) { // print to console
-				sGenerator.print(Main::println);
+				sGenerator.generateSodokus(count, threads, Main::println);
+			} else if (binary) { // write binary file
+				try (PuzzleFileWriter writer = new PuzzleFileWriter(Paths.get(outFile))) {
+					sGenerator.generateSodokus(count, threads, (sodoku, number) -> PuzzleFile.encode(sodoku),
+							record -> {
+								try {
+									writer.write(record);
+								} catch (IOException e) {
+									println("Error, couldn't write to file.");
+								}
+							});
+				} catch (IOException e) {
+					println("Error, file not found.");
+				}
 			} else { // print to file
 				try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outFile))) {
-					sGenerator.print(arg -> {
+					sGenerator.generateSodokus(count, threads, arg -> {
 						try {
 							writer.write(arg);
 						} catch (IOException e) {
@@ -87,11 +263,78 @@ public final class Main {
 					println("Error, file not found.");
 				}
 			}
+			if (printStats)
+				println(GeneratorStats.get().getReport());
 		} else { // create one sodoku and solve it
 			new StartFrame();
 		}
 	}
 
+	/**
+	 * Configures the HTTP server of the JDK for many small keep-alive requests, unless set with -D.
+	 * The server reads these properties only once, when its first instance is created,
+	 * so they are set by the program before, not by the PuzzleServer.
+	 */
+	private static void configureHttpServer() {
+		// responses are small, without it Nagle and delayed ACKs add 40 ms per keep-alive request
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null)
+			System.setProperty("sun.net.httpserver.maxIdleConnections", Integer.toString(MAX_IDLE_CONNECTIONS));
+	}
+
+	/**
+	 * Solves the puzzles of a file and writes the results to outFile or the console.
+	 * @param inFile the file containing the puzzles, - for stdin
+	 * @param outFile the file to write to, empty for the console
+	 * @param threads count of threads to solve with
+	 */
+	@SuppressWarnings({"squid:S106", "PMD.SystemPrintln"}) // results are written to the console without outFile
+	private static void solvePuzzles(final String inFile, final String outFile, final int threads) {
+		final PuzzleSolver solver = new PuzzleSolver(threads);
+		final long start = System.nanoTime();
+		try (ReadableByteChannel in = "-".equals(inFile)
+				? Channels.newChannel(System.in) : FileChannel.open(Paths.get(inFile))) {
+			if ("".equals(outFile)) {
+				solver.solve(in, System.out);
+			} else {
+				try (OutputStream out = Files.newOutputStream(Paths.get(outFile))) {
+					solver.solve(in, out);
+				}
+			}
+		} catch (IOException e) {
+			println("Error, couldn't solve the puzzles: ", e.getMessage());
+			return;
+		}
+		if (!"".equals(outFile))
+			println(solver.getReport(), String.format(" (%.1f s)", (System.nanoTime() - start) / 1e9));
+	}
+
+	/**
+	 * Generates sodokus with the passed square size and writes their text representation to out.
+	 * Every sodoku gets its own random out of seed and its number, like the sodokus of SodokuGenerator.
+	 * @param squareSize count of lines (and rows) of a square
+	 * @param count count of sodokus to generate
+	 * @param seed the seed of all sodokus
+	 * @param firstNumber the number of the first sodoku
+	 * @param out receives the text representation of every sodoku
+	 */
+	private static void generateSized(final int squareSize, final int count, final long seed,
+			final int firstNumber, final Consumer<String> out) {
+		final BacktrackingEngine engine;
+		try {
+			engine = new BacktrackingEngine(squareSize);
+		} catch (IllegalArgumentException e) {
+			println("Error, ", e.getMessage(), ".");
+			return;
+		}
+		for (int number = firstNumber; number < firstNumber + count; number++) {
+			final Grid sodoku = engine.generateGrid(
+					new SplittableRandom(SodokuGenerator.mix(SodokuGenerator.mix(seed) + number)));
+			out.accept(sodoku.getStringRepresentation(number));
+		}
+	}
+
 	/**
 	 * Prints the passed arguments joined by "".
 	 * @param out arguments to print
@@ -0,0 +1,189 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the solutions of a single sodoku with all threads of a ForkJoinPool.
+ * The search tree is split at the first branch points, the fields with the fewest candidates,
+ * into a task for every candidate, and fields with only one candidate are filled without a split.
+ * The parts below SPLIT_DEPTH are searched by a DancingLinks solver per thread.
+ * All tasks share one count, so every part stops as soon as the limit is reached,
+ * and idle threads steal the parts not started yet.
+ * Grids with more than SPARSE_CLUES given elements are counted in the calling thread,
+ * as their search is too short to pay for the tasks.
+ * @author Nicolai
+ *
+ */
+public class ParallelSolutionCounter {
+
+	// Constants
+
+	/**
+	 * Grids with more given elements are counted without splitting.
+	 */
+	public static final int SPARSE_CLUES = 25;
+	/**
+	 * Count of branch points the search tree is split at.
+	 */
+	private static final int SPLIT_DEPTH = 3;
+
+	// Attributes
+
+	/**
+	 * Runs the tasks.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Solver of every thread, reused by all its tasks.
+	 */
+	private final ThreadLocal<DancingLinks> solvers = ThreadLocal.withInitial(DancingLinks::new);
+
+	// Constructor
+
+	/**
+	 * Creates a counter using the common pool.
+	 */
+	public ParallelSolutionCounter() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a counter using the passed pool.
+	 * @param cPool runs the tasks
+	 */
+	public ParallelSolutionCounter(final ForkJoinPool cPool) {
+		super();
+		pool = cPool;
+	}
+
+	// Methods
+
+	/**
+	 * Counts the solutions of the passed sodoku, but not more than maxSolutions.
+	 * @param sodoku the grid containing the given elements
+	 * @param maxSolutions the count of solutions, after which the search stops
+	 * @return the count of solutions, at most maxSolutions, 0 if the given elements break the rules
+	 */
+	public long countSolutions(final Grid sodoku, final long maxSolutions) {
+		if (sodoku.getFilledCount() > SPARSE_CLUES || pool.getParallelism() < 2)
+			return solvers.get().countSolutions(sodoku, maxSolutions, null);
+		final AtomicLong solutions = new AtomicLong();
+		pool.invoke(new CountTask(new Grid(sodoku), 0, maxSolutions, solutions));
+		return Math.min(solutions.get(), maxSolutions);
+	}
+
+	/**
+	 * Checks if the passed sodoku has exactly one solution.
+	 * @param sodoku the grid containing the given elements
+	 * @return true, if the sodoku has a unique solution
+	 */
+	public boolean hasUniqueSolution(final Grid sodoku) {
+		return countSolutions(sodoku, 2) == 1;
+	}
+
+	// inner classes
+
+	/**
+	 * Counts the solutions of a part of the search tree.
+	 * @author Nicolai
+	 *
+	 */
+	private final class CountTask extends RecursiveAction {
+		/**
+		 * Serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The given elements and the choices leading to this part.
+		 */
+		private final transient Grid grid;
+		/**
+		 * Count of splits leading to this part.
+		 */
+		private final int depth;
+		/**
+		 * Count of solutions of all parts, after which the search stops.
+		 */
+		private final long limit;
+		/**
+		 * Count of solutions of all parts.
+		 */
+		private final AtomicLong solutions;
+
+		/**
+		 * Creates a task for a part of the search tree.
+		 * @param tGrid the given elements and the choices leading to the part, owned by the task
+		 * @param tDepth count of splits leading to the part
+		 * @param tLimit count of solutions of all parts, after which the search stops
+		 * @param tSolutions count of solutions of all parts
+		 */
+		private CountTask(final Grid tGrid, final int tDepth, final long tLimit, final AtomicLong tSolutions) {
+			super();
+			grid = tGrid;
+			depth = tDepth;
+			limit = tLimit;
+			solutions = tSolutions;
+		}
+
+		@Override
+		protected void compute() {
+			if (solutions.get() >= limit)
+				return; // limit reached by another part
+			final int field = fillSingles();
+			if (field == -2)
+				return; // a field without candidates
+			if (field < 0 || depth >= SPLIT_DEPTH) {
+				solvers.get().countSolutions(grid, limit, solutions);
+				return;
+			}
+
+			final int line = field / SodokuGenerator.LINE_LENGTH;
+			final int row = field % SodokuGenerator.LINE_LENGTH;
+			final List<CountTask> parts = new ArrayList<>(SodokuGenerator.LINE_LENGTH);
+			for (int rest = grid.getCandidates(line, row); rest != 0; rest &= rest - 1) {
+				final Grid part = new Grid(grid);
+				part.set(line, row, Integer.numberOfTrailingZeros(rest) + 1);
+				parts.add(new CountTask(part, depth + 1, limit, solutions));
+			}
+			invokeAll(parts);
+		}
+
+		/**
+		 * Fills the empty fields with only one candidate, until none is left,
+		 * and searches the empty field with the fewest candidates.
+		 * @return the index of the field with the fewest candidates,
+		 * -1 if no field is empty, -2 if a field has no candidates
+		 */
+		private int fillSingles() {
+			boolean filled = true;
+			int best = -1;
+			while (filled) {
+				filled = false;
+				best = -1;
+				int bestCount = Integer.MAX_VALUE;
+				for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+					final int line = i / SodokuGenerator.LINE_LENGTH;
+					final int row = i % SodokuGenerator.LINE_LENGTH;
+					if (grid.get(line, row) != Grid.EMPTY)
+						continue;
+					final int candidates = grid.getCandidates(line, row);
+					final int count = Integer.bitCount(candidates);
+					if (count == 0)
+						return -2;
+					if (count == 1) {
+						grid.set(line, row, Integer.numberOfTrailingZeros(candidates) + 1);
+						filled = true;
+					} else if (count < bestCount) {
+						best = i;
+						bestCount = count;
+					}
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package de.nicolai.sodoku_generator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary format for files containing many sodokus.
+ * The file starts with a header of HEADER_SIZE bytes:
+ * the magic number, the version, the record size and the count of records.
+ * Every record has RECORD_SIZE bytes, so record N starts at
+ * HEADER_SIZE + N * RECORD_SIZE:
+ * <ul>
+ * <li>41 bytes: the elements of the solution, 4 bits each, line by line,
+ * the first field of a byte in the high bits</li>
+ * <li>11 bytes: one bit per field (lowest bit first), set if the field is given</li>
+ * <li>1 byte: ordinal of the difficulty, -1 if not rated</li>
+ * <li>1 byte: ordinal of the hardest technique + 1, 0 if no technique were needed</li>
+ * <li>2 bytes: the score of the rating</li>
+ * </ul>
+ * @author Nicolai
+ *
+ */
+public final class PuzzleFile {
+	/**
+	 * First 4 bytes of every file ("SDKB").
+	 */
+	public static final int MAGIC = 0x53_44_4B_42;
+	/**
+	 * Version of the format.
+	 */
+	public static final short VERSION = 1;
+	/**
+	 * Size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 16;
+	/**
+	 * Size of a record in bytes.
+	 */
+	public static final int RECORD_SIZE = 56;
+	/**
+	 * Position of the count of records in the header.
+	 */
+	static final int COUNT_POSITION = 8;
+	/**
+	 * Position of the given fields in a record.
+	 */
+	private static final int MASK_POSITION = 41;
+	/**
+	 * Position of the difficulty in a record.
+	 */
+	private static final int DIFFICULTY_POSITION = 52;
+	/**
+	 * Position of the hardest technique in a record.
+	 */
+	private static final int TECHNIQUE_POSITION = 53;
+	/**
+	 * Position of the score in a record.
+	 */
+	private static final int SCORE_POSITION = 54;
+	/**
+	 * Count of bits in a byte.
+	 */
+	private static final int BYTE_BITS = 8;
+	/**
+	 * Count of bits per element.
+	 */
+	private static final int NIBBLE_BITS = 4;
+
+	private PuzzleFile() { }
+
+	/**
+	 * Writes the header for the passed count of records.
+	 * @param buffer the buffer to write the header to
+	 * @param count the count of records
+	 */
+	static void writeHeader(final ByteBuffer buffer, final long count) {
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) RECORD_SIZE);
+		buffer.putLong(count);
+	}
+
+	/**
+	 * Encodes a sodoku as record.
+	 * Solvable sodokus are stored with their solution, given fields and rating,
+	 * other sodokus with all fields given.
+	 * @param sodoku the sodoku to encode
+	 * @return the record
+	 */
+	public static byte[] encode(final Sodoku sodoku) {
+		final byte[] record = new byte[RECORD_SIZE];
+		if (sodoku instanceof SolvableSodoku) {
+			final SolvableSodoku puzzle = (SolvableSodoku) sodoku;
+			final DifficultyRater.Rating rating = puzzle.getRating();
+			encodeGrids(record, puzzle.getSolutionGrid(), puzzle.getGivenGrid());
+			record[DIFFICULTY_POSITION] = (byte) rating.getDifficulty().ordinal();
+			record[TECHNIQUE_POSITION] = (byte) (rating.getHardestTechnique() == null
+					? 0 : rating.getHardestTechnique().ordinal() + 1);
+			record[SCORE_POSITION] = (byte) (rating.getScore() >>> BYTE_BITS);
+			record[SCORE_POSITION + 1] = (byte) rating.getScore();
+		} else {
+			final Grid grid = sodoku.getGridCopy();
+			encodeGrids(record, grid, grid);
+			record[DIFFICULTY_POSITION] = -1;
+		}
+		return record;
+	}
+
+	/**
+	 * Writes the solution and the given fields to a record.
+	 * @param record the record to write to
+	 * @param solution the solved sodoku
+	 * @param given the given fields
+	 */
+	private static void encodeGrids(final byte[] record, final Grid solution, final Grid given) {
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final int line = i / SodokuGenerator.LINE_LENGTH;
+			final int row = i % SodokuGenerator.LINE_LENGTH;
+			final int shift = i % 2 == 0 ? NIBBLE_BITS : 0;
+			record[i / 2] |= solution.get(line, row) << shift;
+			if (given.get(line, row) != Grid.EMPTY)
+				record[MASK_POSITION + i / BYTE_BITS] |= 1 << (i % BYTE_BITS);
+		}
+	}
+
+	/**
+	 * Reads the solution of a record.
+	 * @param buffer the buffer containing the record
+	 * @param position the position of the record in the buffer
+	 * @return the solved sodoku
+	 */
+	static Grid decodeSolution(final ByteBuffer buffer, final int position) {
+		return decode(buffer, position, false);
+	}
+
+	/**
+	 * Reads the given fields of a record.
+	 * @param buffer the buffer containing the record
+	 * @param position the position of the record in the buffer
+	 * @return the grid containing only the given fields
+	 */
+	static Grid decodePuzzle(final ByteBuffer buffer, final int position) {
+		return decode(buffer, position, true);
+	}
+
+	/**
+	 * Reads the fields of a record.
+	 * @param buffer the buffer containing the record
+	 * @param position the position of the record in the buffer
+	 * @param givenOnly true, to keep fields empty, which aren't given
+	 * @return the read grid
+	 */
+	private static Grid decode(final ByteBuffer buffer, final int position, final boolean givenOnly) {
+		final Grid grid = new Grid();
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final int packed = buffer.get(position + i / 2);
+			final int element = (i % 2 == 0 ? packed >>> NIBBLE_BITS : packed) & 0xF;
+			final boolean given = (buffer.get(position + MASK_POSITION + i / BYTE_BITS) & 1 << (i % BYTE_BITS)) != 0;
+			if (given || !givenOnly)
+				grid.set(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH, element);
+		}
+		return grid;
+	}
+
+	/**
+	 * Reads the difficulty of a record.
+	 * @param buffer the buffer containing the record
+	 * @param position the position of the record in the buffer
+	 * @return the difficulty, null if the record isn't rated
+	 */
+	static Difficulty decodeDifficulty(final ByteBuffer buffer, final int position) {
+		final int ordinal = buffer.get(position + DIFFICULTY_POSITION);
+		return ordinal < 0 ? null : Difficulty.values()[ordinal];
+	}
+}
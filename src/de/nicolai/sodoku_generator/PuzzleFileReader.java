@@ -0,0 +1,120 @@
+package de.nicolai.sodoku_generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads sodokus of a binary PuzzleFile by their number.
+ * The file is mapped into memory, so any record is read in constant time
+ * without reading the records before it.
+ * Files bigger than 2 GB are mapped in several segments.
+ * @author Nicolai
+ *
+ */
+public class PuzzleFileReader implements Closeable {
+	/**
+	 * Count of records per mapped segment.
+	 */
+	private static final int SEGMENT_RECORDS = Integer.MAX_VALUE / PuzzleFile.RECORD_SIZE;
+	/**
+	 * The channel of the file.
+	 */
+	private final FileChannel channel;
+	/**
+	 * The mapped segments of the file.
+	 */
+	private final MappedByteBuffer[] segments;
+	/**
+	 * Count of records in the file.
+	 */
+	private final long count;
+
+	/**
+	 * Opens the file and maps it into memory.
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be read or isn't a PuzzleFile
+	 */
+	public PuzzleFileReader(final Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PuzzleFile.HEADER_SIZE);
+			if (header.getInt(0) != PuzzleFile.MAGIC || header.getShort(Integer.BYTES) != PuzzleFile.VERSION)
+				throw new IOException("Not a sodoku file: " + file);
+			count = header.getLong(PuzzleFile.COUNT_POSITION);
+			segments = new MappedByteBuffer[(int) ((count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+			for (int i = 0; i < segments.length; i++) {
+				final long first = (long) i * SEGMENT_RECORDS;
+				final long records = Math.min(SEGMENT_RECORDS, count - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						PuzzleFile.HEADER_SIZE + first * PuzzleFile.RECORD_SIZE, records * PuzzleFile.RECORD_SIZE);
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the count of sodokus in the file.
+	 * @return the count of records
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Reads the solution of a sodoku.
+	 * @param number the number of the sodoku, starting at 0
+	 * @return the solved sodoku
+	 */
+	public Grid getSolution(final long number) {
+		return PuzzleFile.decodeSolution(getSegment(number), getPosition(number));
+	}
+
+	/**
+	 * Reads the given fields of a sodoku.
+	 * @param number the number of the sodoku, starting at 0
+	 * @return the grid containing only the given fields
+	 */
+	public Grid getPuzzle(final long number) {
+		return PuzzleFile.decodePuzzle(getSegment(number), getPosition(number));
+	}
+
+	/**
+	 * Reads the difficulty of a sodoku.
+	 * @param number the number of the sodoku, starting at 0
+	 * @return the difficulty, null if the sodoku isn't rated
+	 */
+	public Difficulty getDifficulty(final long number) {
+		return PuzzleFile.decodeDifficulty(getSegment(number), getPosition(number));
+	}
+
+	/**
+	 * Returns the segment containing a record.
+	 * @param number the number of the record
+	 * @return the mapped segment
+	 */
+	private MappedByteBuffer getSegment(final long number) {
+		if (number < 0 || number >= count)
+			throw new IndexOutOfBoundsException("No sodoku number " + number + " in file of " + count);
+		return segments[(int) (number / SEGMENT_RECORDS)];
+	}
+
+	/**
+	 * Returns the position of a record in its segment.
+	 * @param number the number of the record
+	 * @return the position in bytes
+	 */
+	private static int getPosition(final long number) {
+		return (int) (number % SEGMENT_RECORDS) * PuzzleFile.RECORD_SIZE;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,93 @@
+package de.nicolai.sodoku_generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes sodokus in the binary PuzzleFile format.
+ * The count in the header is written, when the writer is closed.
+ * @author Nicolai
+ *
+ */
+public class PuzzleFileWriter implements Closeable {
+	/**
+	 * Count of records collected before they are written.
+	 */
+	private static final int BUFFERED_RECORDS = 1_024;
+	/**
+	 * The channel of the file.
+	 */
+	private final FileChannel channel;
+	/**
+	 * Collects the records before writing them.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFERED_RECORDS * PuzzleFile.RECORD_SIZE);
+	/**
+	 * Count of written records.
+	 */
+	private long count;
+
+	/**
+	 * Creates the file (replacing an existing one) and writes the header.
+	 * @param file the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	public PuzzleFileWriter(final Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		PuzzleFile.writeHeader(buffer, 0);
+	}
+
+	/**
+	 * Writes a sodoku.
+	 * @param sodoku the sodoku to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(final Sodoku sodoku) throws IOException {
+		write(PuzzleFile.encode(sodoku));
+	}
+
+	/**
+	 * Writes an encoded record.
+	 * @param record the record created by PuzzleFile.encode
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(final byte... record) throws IOException {
+		if (buffer.remaining() < record.length)
+			flush();
+		buffer.put(record);
+		count++;
+	}
+
+	/**
+	 * Writes the collected records to the file.
+	 * @throws IOException if the file can't be written
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the remaining records and the count of records, and closes the file.
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			final ByteBuffer header = ByteBuffer.allocate(PuzzleFile.HEADER_SIZE);
+			PuzzleFile.writeHeader(header, count);
+			header.flip();
+			channel.write(header, 0);
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package de.nicolai.sodoku_generator;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pools of ready puzzles with a unique solution, one for every difficulty.
+ * Background threads generate puzzles aimed at the difficulty of the pool with the fewest puzzles
+ * and wait while all pools are full, so taking a puzzle is just a poll.
+ * Puzzles missing the difficulty aimed for are kept in their own pool, if it isn't full.
+ * @author Nicolai
+ *
+ */
+public class PuzzlePool {
+
+	// Attributes
+
+	/**
+	 * The puzzles of every difficulty.
+	 */
+	private final Map<Difficulty, BlockingQueue<SolvableSodoku>> pools = new EnumMap<>(Difficulty.class);
+	/**
+	 * Creates the engines of the background threads.
+	 */
+	private final Supplier<? extends GridEngine> engineFactory;
+	/**
+	 * Count of background threads.
+	 */
+	private final int threads;
+	/**
+	 * Splits the randoms of the background threads.
+	 */
+	private final SplittableRandom random;
+	/**
+	 * Waited on by the background threads, while all pools are full.
+	 */
+	private final Object refill = new Object();
+	/**
+	 * Count of background threads looking for a pool, which isn't full.
+	 * Only changed while holding refill.
+	 */
+	private volatile int waiting;
+	/**
+	 * Runs the background threads, null until started.
+	 */
+	private ExecutorService workers;
+
+	// Constructor
+
+	/**
+	 * Creates empty pools.
+	 * @param capacity max count of puzzles per difficulty
+	 * @param workerThreads count of background threads
+	 * @param gridEngineFactory creates the engines used to fill the sodokus
+	 */
+	public PuzzlePool(final int capacity, final int workerThreads,
+			final Supplier<? extends GridEngine> gridEngineFactory) {
+		super();
+		for (final Difficulty difficulty:Difficulty.values())
+			pools.put(difficulty, new ArrayBlockingQueue<>(capacity));
+		threads = workerThreads;
+		engineFactory = gridEngineFactory;
+		random = new SplittableRandom();
+	}
+
+	// Methods
+
+	/**
+	 * Starts the background threads filling the pools.
+	 */
+	public synchronized void start() {
+		if (workers != null)
+			return;
+		workers = Executors.newFixedThreadPool(threads, runnable -> {
+			final Thread thread = new Thread(runnable, "puzzle-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < threads; i++) {
+			final SplittableRandom workerRandom = random.split();
+			workers.execute(() -> fill(engineFactory.get(), workerRandom));
+		}
+	}
+
+	/**
+	 * Stops the background threads.
+	 */
+	public synchronized void stop() {
+		if (workers != null)
+			workers.shutdownNow();
+		workers = null;
+	}
+
+	/**
+	 * Generates puzzles, until the thread is interrupted.
+	 * @param engine the engine to fill the sodokus with
+	 * @param workerRandom used for all random decisions of the thread
+	 */
+	private void fill(final GridEngine engine, final SplittableRandom workerRandom) {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				final Difficulty needed = waitForSpace();
+				final SolvableSodoku puzzle = SolvableSodoku.createRated(engine.generate(workerRandom), needed,
+						workerRandom);
+				// easier puzzles are dropped, if their pool is full
+				pools.get(puzzle.getRating().getDifficulty()).offer(puzzle);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits, until a pool isn't full.
+	 * @return the difficulty with the fewest puzzles in its pool
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private Difficulty waitForSpace() throws InterruptedException {
+		synchronized (refill) {
+			waiting++; // before looking at the pools, so no poll is missed
+			try {
+				while (true) {
+					Difficulty needed = null;
+					int fewest = Integer.MAX_VALUE;
+					for (final Map.Entry<Difficulty, BlockingQueue<SolvableSodoku>> pool:pools.entrySet())
+						if (pool.getValue().remainingCapacity() > 0 && pool.getValue().size() < fewest) {
+							needed = pool.getKey();
+							fewest = pool.getValue().size();
+						}
+					if (needed != null)
+						return needed;
+					refill.wait();
+				}
+			} finally {
+				waiting--;
+			}
+		}
+	}
+
+	/**
+	 * Takes a puzzle of the passed difficulty, waiting for it if the pool is empty.
+	 * @param difficulty the difficulty of the puzzle
+	 * @param timeout max time to wait
+	 * @param unit unit of timeout
+	 * @return the puzzle, null if none were generated in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public SolvableSodoku poll(final Difficulty difficulty, final long timeout, final TimeUnit unit)
+			throws InterruptedException {
+		final BlockingQueue<SolvableSodoku> pool = pools.get(difficulty);
+		final SolvableSodoku puzzle = pool.poll(timeout, unit);
+		if (puzzle != null && waiting > 0)
+			synchronized (refill) {
+				refill.notifyAll();
+			}
+		return puzzle;
+	}
+
+	/**
+	 * Returns the count of ready puzzles of the passed difficulty.
+	 * @param difficulty the difficulty of the puzzles
+	 * @return the count of puzzles in the pool
+	 */
+	public int size(final Difficulty difficulty) {
+		return pools.get(difficulty).size();
+	}
+
+	/**
+	 * Returns the count of background threads.
+	 * @return the count of threads filling the pools
+	 */
+	public int getThreads() {
+		return threads;
+	}
+}
@@ -0,0 +1,414 @@
+package de.nicolai.sodoku_generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the puzzles of a PuzzlePool over HTTP, so they don't need to be generated per request.
+ * <ul>
+ * <li>GET /puzzle?difficulty=EASY&amp;format=json - a puzzle as JSON,
+ * format=compact for the record of the PuzzleFile format, format=text for the text representation</li>
+ * <li>GET /pool - the count of ready puzzles per difficulty as JSON</li>
+ * <li>GET /hint?grid=... - the next field to fill in the passed grid
+ * (81 digits line by line, 0 for empty fields) and the technique needed for it as JSON,
+ * 400 if the grid hasn't exactly one solution, like every grid with fewer than 17 given elements</li>
+ * </ul>
+ * Every request is handled on its own virtual thread, if the JVM has them (JDK 21),
+ * so waiting requests cost almost nothing; the puzzles are generated by the bounded threads of the pool.
+ * Hints are searched by at most as many requests at a time as the pool has threads,
+ * the other hint requests wait for a free slot.
+ * The server changes no settings of the JVM. For many small keep-alive requests,
+ * sun.net.httpserver.nodelay should be true, which Main sets before creating the first server.
+ * @author Nicolai
+ *
+ */
+public class PuzzleServer {
+
+	// Constants
+
+	/**
+	 * Max time to wait for a puzzle, if its pool is empty.
+	 */
+	private static final long MAX_WAIT_MILLIS = 5_000;
+	/**
+	 * Fewest given elements of a grid with a unique solution,
+	 * sparser grids are refused before searching their many solutions.
+	 */
+	private static final int MIN_CLUES = 17;
+	/**
+	 * Count of threads handling the requests, if the JVM has no virtual threads.
+	 */
+	private static final int HANDLER_THREADS = 16;
+	/**
+	 * Count of connections waiting to be accepted.
+	 */
+	private static final int BACKLOG = 1024;
+	/**
+	 * Seconds to wait for running requests when stopping.
+	 */
+	private static final int STOP_DELAY = 1;
+	/**
+	 * HTTP status for successful requests.
+	 */
+	private static final int OK = 200;
+	/**
+	 * HTTP status for invalid parameters.
+	 */
+	private static final int BAD_REQUEST = 400;
+	/**
+	 * HTTP status for other methods than GET.
+	 */
+	private static final int METHOD_NOT_ALLOWED = 405;
+	/**
+	 * HTTP status, if no puzzle is ready or no hint slot is free in time.
+	 */
+	private static final int UNAVAILABLE = 503;
+
+	// Attributes
+
+	/**
+	 * The pool the puzzles are taken from.
+	 */
+	private final PuzzlePool pool;
+	/**
+	 * The underlying server.
+	 */
+	private final HttpServer server;
+	/**
+	 * Runs the handlers of the requests.
+	 */
+	private final ExecutorService handlers;
+	/**
+	 * True, if every request is handled on its own virtual thread.
+	 */
+	private final boolean virtualThreads;
+	/**
+	 * Count of served puzzles, used to number them.
+	 */
+	private final AtomicLong served = new AtomicLong();
+	/**
+	 * Slots for searching hints, one per thread of the pool, so the unbounded handlers can't take every core.
+	 */
+	private final Semaphore hintSlots;
+
+	// Constructor
+
+	/**
+	 * Creates a server for the passed pool, listening on the passed port.
+	 * @param puzzlePool the pool the puzzles are taken from
+	 * @param port the port to listen on
+	 * @throws IOException if the port can't be bound
+	 */
+	public PuzzleServer(final PuzzlePool puzzlePool, final int port) throws IOException {
+		super();
+		pool = puzzlePool;
+		hintSlots = new Semaphore(puzzlePool.getThreads());
+		server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+		server.createContext("/puzzle", this::handlePuzzle);
+		server.createContext("/pool", this::handlePool);
+		server.createContext("/hint", this::handleHint);
+		final ExecutorService virtual = createVirtualExecutor();
+		virtualThreads = virtual != null;
+		handlers = virtualThreads ? virtual : Executors.newFixedThreadPool(HANDLER_THREADS);
+		server.setExecutor(handlers);
+	}
+
+	// Methods
+
+	/**
+	 * Starts filling the pool and serving the puzzles.
+	 */
+	public void start() {
+		pool.start();
+		server.start();
+	}
+
+	/**
+	 * Stops serving and filling the pool.
+	 */
+	public void stop() {
+		server.stop(STOP_DELAY);
+		handlers.shutdownNow();
+		pool.stop();
+	}
+
+	/**
+	 * Returns, if every request is handled on its own virtual thread.
+	 * Else the requests share HANDLER_THREADS platform threads.
+	 * @return true, if virtual threads are used
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Returns the port, the server listens on.
+	 * @return the port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Answers a request for a puzzle.
+	 * @param exchange the request and response
+	 * @throws IOException if the response can't be sent
+	 */
+	private void handlePuzzle(final HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, METHOD_NOT_ALLOWED, "text/plain", "Only GET is allowed.\n");
+				return;
+			}
+			final Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+			final Difficulty difficulty;
+			try {
+				difficulty = Difficulty.valueOf(params.getOrDefault("difficulty", "EASY").toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				send(exchange, BAD_REQUEST, "text/plain", "Unknown difficulty.\n");
+				return;
+			}
+			final String format = params.getOrDefault("format", "json");
+			if (!"json".equals(format) && !"compact".equals(format) && !"text".equals(format)) {
+				send(exchange, BAD_REQUEST, "text/plain", "Unknown format.\n");
+				return;
+			}
+
+			final SolvableSodoku puzzle = pool.poll(difficulty, MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+			if (puzzle == null) {
+				send(exchange, UNAVAILABLE, "text/plain", "No puzzle ready, try again later.\n");
+				return;
+			}
+			final long number = served.incrementAndGet();
+			if ("compact".equals(format))
+				send(exchange, OK, "application/octet-stream", PuzzleFile.encode(puzzle));
+			else if ("text".equals(format))
+				send(exchange, OK, "text/plain", puzzle.getStringRepresentation((int) number));
+			else
+				send(exchange, OK, "application/json", toJson(puzzle, number));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Answers a request for the count of ready puzzles.
+	 * @param exchange the request and response
+	 * @throws IOException if the response can't be sent
+	 */
+	private void handlePool(final HttpExchange exchange) throws IOException {
+		try (exchange) {
+			final StringBuilder sBuilder = new StringBuilder("{");
+			for (final Difficulty difficulty:Difficulty.values()) {
+				if (sBuilder.length() > 1)
+					sBuilder.append(',');
+				sBuilder.append('"').append(difficulty).append("\":").append(pool.size(difficulty));
+			}
+			send(exchange, OK, "application/json", sBuilder.append("}\n").toString());
+		}
+	}
+
+	/**
+	 * Answers a request for a hint, if the passed grid has a unique solution.
+	 * The search waits for one of the hint slots, so only as many hints as pool threads are searched at a time.
+	 * @param exchange the request and response
+	 * @throws IOException if the response can't be sent
+	 */
+	private void handleHint(final HttpExchange exchange) throws IOException {
+		try (exchange) {
+			final Grid grid = parseGrid(parseQuery(exchange.getRequestURI().getRawQuery()).get("grid"));
+			if (grid == null) {
+				send(exchange, BAD_REQUEST, "text/plain", "Invalid grid.\n");
+				return;
+			}
+			if (grid.getFilledCount() < MIN_CLUES) { // no such grid has a unique solution, but many to search
+				send(exchange, BAD_REQUEST, "text/plain", "The grid has fewer than " + MIN_CLUES
+						+ " given elements, so more than one solution.\n");
+				return;
+			}
+			if (!hintSlots.tryAcquire(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				send(exchange, UNAVAILABLE, "text/plain", "Too many hints requested, try again later.\n");
+				return;
+			}
+			try {
+				sendHint(exchange, grid);
+			} finally {
+				hintSlots.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Searches the solution of the grid and sends the hint out of it.
+	 * Needs no state of the game, so every request creates its own engine.
+	 * @param exchange the request and response
+	 * @param grid the given elements, following the rules
+	 * @throws IOException if the response can't be sent
+	 */
+	private static void sendHint(final HttpExchange exchange, final Grid grid) throws IOException {
+		final DancingLinks solver = new DancingLinks();
+		final int solutions = solver.countSolutions(grid, 2);
+		if (solutions == 0) {
+			send(exchange, BAD_REQUEST, "text/plain", "The grid has no solution.\n");
+			return;
+		}
+		if (solutions > 1) { // a hint out of one of the solutions could be wrong for the others
+			send(exchange, BAD_REQUEST, "text/plain", "The grid has more than one solution.\n");
+			return;
+		}
+		final Grid solution = new Grid();
+		solver.copySolution(solution);
+		final HintEngine.Hint hint = new HintEngine(grid, solution).nextHint();
+		send(exchange, OK, "application/json", hint == null ? "null\n" : toJson(hint));
+	}
+
+	/**
+	 * Creates the JSON representation of a hint, with line and row starting at 0.
+	 * @param hint the hint
+	 * @return the JSON object
+	 */
+	static String toJson(final HintEngine.Hint hint) {
+		final StringBuilder sBuilder = new StringBuilder(96);
+		sBuilder.append("{\"line\":").append(hint.getLine())
+				.append(",\"row\":").append(hint.getRow())
+				.append(",\"element\":").append(hint.getElement())
+				.append(",\"technique\":");
+		if (hint.getTechnique() == null)
+			sBuilder.append("null");
+		else
+			sBuilder.append('"').append(hint.getTechnique()).append('"');
+		return sBuilder.append("}\n").toString();
+	}
+
+	/**
+	 * Creates a grid out of 81 digits, 0 for empty fields.
+	 * @param digits the fields line by line
+	 * @return the grid, null if the digits are invalid or break the rules
+	 */
+	private static Grid parseGrid(final String digits) {
+		if (digits == null || digits.length() != Grid.FIELD_COUNT)
+			return null;
+		final Grid grid = new Grid();
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final char digit = digits.charAt(i);
+			if (digit < '0' || digit > '9')
+				return null;
+			if (digit != '0' && !grid.place(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH,
+					digit - '0'))
+				return null;
+		}
+		return grid;
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task.
+	 * Looked up by reflection, so the server still runs on JVMs without virtual threads.
+	 * Blocking handlers are cheap then, the puzzles are still generated by the platform threads of the pool.
+	 * @return the executor, null if the JVM has no virtual threads
+	 */
+	private static ExecutorService createVirtualExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the JSON representation of a puzzle.
+	 * The fields are written line by line, 0 for empty fields.
+	 * @param puzzle the puzzle
+	 * @param number the number of the puzzle
+	 * @return the JSON object
+	 */
+	static String toJson(final SolvableSodoku puzzle, final long number) {
+		final DifficultyRater.Rating rating = puzzle.getRating();
+		final StringBuilder sBuilder = new StringBuilder(256);
+		sBuilder.append("{\"number\":").append(number)
+				.append(",\"difficulty\":\"").append(rating.getDifficulty())
+				.append("\",\"score\":").append(rating.getScore())
+				.append(",\"technique\":");
+		if (rating.getHardestTechnique() == null)
+			sBuilder.append("null");
+		else
+			sBuilder.append('"').append(rating.getHardestTechnique()).append('"');
+		sBuilder.append(",\"puzzle\":\"").append(toDigits(puzzle.getGivenGrid()))
+				.append("\",\"solution\":\"").append(toDigits(puzzle.getSolutionGrid()))
+				.append("\"}\n");
+		return sBuilder.toString();
+	}
+
+	/**
+	 * Writes the fields of a grid line by line, 0 for empty fields.
+	 * @param grid the grid
+	 * @return the 81 digits
+	 */
+	private static String toDigits(final Grid grid) {
+		final char[] digits = new char[Grid.FIELD_COUNT];
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			digits[i] = (char) ('0' + grid.get(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH));
+		return new String(digits);
+	}
+
+	/**
+	 * Splits a query into its parameters.
+	 * @param query the raw query, may be null
+	 * @return the value of every parameter
+	 */
+	private static Map<String, String> parseQuery(final String query) {
+		final Map<String, String> params = new HashMap<>();
+		if (query == null)
+			return params;
+		for (final String param:query.split("&")) {
+			final int split = param.indexOf('=');
+			if (split > 0)
+				params.put(param.substring(0, split), param.substring(split + 1));
+		}
+		return params;
+	}
+
+	/**
+	 * Sends a text response.
+	 * @param exchange the request and response
+	 * @param status the HTTP status
+	 * @param type the content type
+	 * @param body the text to send
+	 * @throws IOException if the response can't be sent
+	 */
+	private static void send(final HttpExchange exchange, final int status, final String type, final String body)
+			throws IOException {
+		send(exchange, status, type + "; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Sends a response.
+	 * @param exchange the request and response
+	 * @param status the HTTP status
+	 * @param type the content type
+	 * @param body the bytes to send
+	 * @throws IOException if the response can't be sent
+	 */
+	private static void send(final HttpExchange exchange, final int status, final String type, final byte[] body)
+			throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", type);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package de.nicolai.sodoku_generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves many puzzles, one per line of 81 characters (1-9, 0 or . for empty fields).
+ * The input is read in chunks of whole lines, which are parsed and solved by several threads,
+ * and the results are written in the order of the input, one line per puzzle:
+ * the 81 digits of the solution, or INVALID, UNSOLVABLE or MULTIPLE.
+ * Empty lines are INVALID too, so line n of the output always belongs to line n of the input.
+ * Only a few chunks per thread are kept in memory at a time,
+ * so the memory usage doesn't depend on the size of the input.
+ * @author Nicolai
+ *
+ */
+public class PuzzleSolver {
+
+	// Constants
+
+	/**
+	 * Size of the chunks read at once, in bytes.
+	 */
+	private static final int CHUNK_SIZE = 1 << 20;
+	/**
+	 * Count of chunks per thread, which are read before the first one is written.
+	 */
+	private static final int PENDING_CHUNKS_PER_THREAD = 2;
+	/**
+	 * Result for lines, which aren't a puzzle or break the rules.
+	 */
+	private static final byte[] INVALID = "INVALID\n".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Result for puzzles without solution.
+	 */
+	private static final byte[] UNSOLVABLE = "UNSOLVABLE\n".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Result for puzzles with more than one solution.
+	 */
+	private static final byte[] MULTIPLE = "MULTIPLE\n".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Index of the count of solved puzzles.
+	 */
+	private static final int SOLVED = 0;
+	/**
+	 * Index of the count of puzzles with more than one solution.
+	 */
+	private static final int MULTIPLE_COUNT = 1;
+	/**
+	 * Index of the count of puzzles without solution.
+	 */
+	private static final int UNSOLVABLE_COUNT = 2;
+	/**
+	 * Index of the count of invalid lines.
+	 */
+	private static final int INVALID_COUNT = 3;
+
+	// Attributes
+
+	/**
+	 * Count of threads solving the puzzles.
+	 */
+	private final int threads;
+	/**
+	 * Count of solved, multiple, unsolvable and invalid puzzles of the last run.
+	 */
+	private final long[] counts = new long[INVALID_COUNT + 1];
+	/**
+	 * Holds the bytes read, but not passed on as chunk yet.
+	 */
+	private ByteBuffer buffer;
+
+	// Constructor
+
+	/**
+	 * Creates a solver using the passed count of threads.
+	 * @param sThreads count of threads solving the puzzles
+	 */
+	public PuzzleSolver(final int sThreads) {
+		super();
+		threads = Math.max(1, sThreads);
+	}
+
+	// Methods
+
+	/**
+	 * Solves all puzzles of the input and writes the results to out, in the order of the input.
+	 * @param in the puzzles, one per line
+	 * @param out receives one line per puzzle
+	 * @throws IOException if the input can't be read or the output can't be written
+	 */
+	public void solve(final ReadableByteChannel in, final OutputStream out) throws IOException {
+		Arrays.fill(counts, 0);
+		buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		final ThreadLocal<DancingLinks> solvers = ThreadLocal.withInitial(DancingLinks::new);
+		final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			boolean end = false;
+			while (!end || !pending.isEmpty()) {
+				while (!end && pending.size() < threads * PENDING_CHUNKS_PER_THREAD) {
+					final byte[] input = nextChunk(in);
+					if (input == null)
+						end = true;
+					else
+						pending.add(pool.submit(() -> solveChunk(input, solvers.get())));
+				}
+				if (!pending.isEmpty()) {
+					final Chunk chunk = pending.poll().get();
+					out.write(chunk.output, 0, chunk.length);
+					for (int i = 0; i < counts.length; i++)
+						counts[i] += chunk.counts[i];
+				}
+			}
+			out.flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while solving puzzles.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Couldn't solve puzzles.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+			buffer = null;
+		}
+	}
+
+	/**
+	 * Reads the next lines of the input.
+	 * The buffer grows, if a single line doesn't fit into it.
+	 * @param in the input
+	 * @return the complete lines read, the rest of the input at its end, null if nothing is left
+	 * @throws IOException if the input can't be read
+	 */
+	private byte[] nextChunk(final ReadableByteChannel in) throws IOException {
+		while (true) {
+			boolean end = false;
+			while (buffer.hasRemaining() && !end)
+				end = in.read(buffer) < 0;
+			final int length = buffer.position();
+			if (length == 0)
+				return null;
+			int split = length;
+			if (!end) {
+				split = lastLineEnd(buffer.array(), length);
+				if (split == 0) { // line longer than the buffer
+					buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+					continue;
+				}
+			}
+			final byte[] chunk = Arrays.copyOf(buffer.array(), split);
+			buffer.flip().position(split);
+			buffer.compact();
+			return chunk;
+		}
+	}
+
+	/**
+	 * Searches the end of the last complete line.
+	 * @param bytes the bytes read
+	 * @param length count of bytes read
+	 * @return the index after the last line break, 0 if there is none
+	 */
+	private static int lastLineEnd(final byte[] bytes, final int length) {
+		for (int i = length - 1; i >= 0; i--)
+			if (bytes[i] == '\n')
+				return i + 1;
+		return 0;
+	}
+
+	/**
+	 * Solves the puzzles of a chunk.
+	 * @param input the lines of the chunk
+	 * @param solver the solver of the thread
+	 * @return the result lines and counts of the chunk
+	 */
+	private static Chunk solveChunk(final byte[] input, final DancingLinks solver) {
+		final Chunk chunk = new Chunk(input.length / Grid.FIELD_COUNT + 1);
+		final Grid grid = new Grid();
+		final Grid solution = new Grid();
+		int start = 0;
+		while (start < input.length) {
+			int end = start;
+			while (end < input.length && input[end] != '\n')
+				end++;
+			final int next = end + 1;
+			if (end > start && input[end - 1] == '\r')
+				end--;
+			if (!parse(input, start, end, grid)) { // empty lines too, so output line n belongs to input line n
+				chunk.add(INVALID, INVALID_COUNT);
+			} else {
+				final int solutions = solver.countSolutions(grid, 2);
+				if (solutions == 0) {
+					chunk.add(UNSOLVABLE, UNSOLVABLE_COUNT);
+				} else if (solutions > 1) {
+					chunk.add(MULTIPLE, MULTIPLE_COUNT);
+				} else {
+					solver.copySolution(solution);
+					chunk.add(solution);
+				}
+			}
+			start = next;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Parses a puzzle out of a line.
+	 * @param input the bytes containing the line
+	 * @param start index of the first character of the line
+	 * @param end index after the last character of the line
+	 * @param grid the grid to write the puzzle to
+	 * @return false, if the line isn't a puzzle or an element is contained twice in a unit
+	 */
+	private static boolean parse(final byte[] input, final int start, final int end, final Grid grid) {
+		if (end - start != Grid.FIELD_COUNT)
+			return false;
+		grid.clear();
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final byte chr = input[start + i];
+			if (chr == '.' || chr == '0')
+				continue;
+			if (chr < '1' || chr > '9'
+					|| !grid.place(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH, chr - '0'))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a text representation of the counts of the last run.
+	 * @return the counts of solved, multiple, unsolvable and invalid puzzles
+	 */
+	public String getReport() {
+		return "Solved: " + counts[SOLVED] + ", multiple solutions: " + counts[MULTIPLE_COUNT]
+				+ ", unsolvable: " + counts[UNSOLVABLE_COUNT] + ", invalid: " + counts[INVALID_COUNT];
+	}
+
+	// Getter
+
+	/**
+	 * Returns the count of puzzles with a unique solution of the last run.
+	 * @return the count of solved puzzles
+	 */
+	public long getSolvedCount() {
+		return counts[SOLVED];
+	}
+
+	/**
+	 * Returns the count of puzzles with more than one solution of the last run.
+	 * @return the count of puzzles with multiple solutions
+	 */
+	public long getMultipleCount() {
+		return counts[MULTIPLE_COUNT];
+	}
+
+	/**
+	 * Returns the count of puzzles without solution of the last run.
+	 * @return the count of unsolvable puzzles
+	 */
+	public long getUnsolvableCount() {
+		return counts[UNSOLVABLE_COUNT];
+	}
+
+	/**
+	 * Returns the count of invalid lines of the last run.
+	 * @return the count of invalid lines
+	 */
+	public long getInvalidCount() {
+		return counts[INVALID_COUNT];
+	}
+
+	// inner classes
+
+	/**
+	 * The result lines and counts of a chunk.
+	 * @author Nicolai
+	 *
+	 */
+	private static final class Chunk {
+		/**
+		 * The result lines.
+		 */
+		private byte[] output;
+		/**
+		 * Count of bytes used in output.
+		 */
+		private int length;
+		/**
+		 * Count of solved, multiple, unsolvable and invalid puzzles.
+		 */
+		private final int[] counts = new int[INVALID_COUNT + 1];
+
+		/**
+		 * Creates an empty chunk.
+		 * @param lines expected count of lines
+		 */
+		private Chunk(final int lines) {
+			output = new byte[lines * (Grid.FIELD_COUNT + 1)];
+		}
+
+		/**
+		 * Adds a line for a puzzle, which couldn't be solved.
+		 * @param line the result line
+		 * @param count the index of the count to increase
+		 */
+		private void add(final byte[] line, final int count) {
+			ensureCapacity(line.length);
+			System.arraycopy(line, 0, output, length, line.length);
+			length += line.length;
+			counts[count]++;
+		}
+
+		/**
+		 * Adds the line of a solved puzzle.
+		 * @param solution the solution of the puzzle
+		 */
+		private void add(final Grid solution) {
+			ensureCapacity(Grid.FIELD_COUNT + 1);
+			for (int i = 0; i < Grid.FIELD_COUNT; i++)
+				output[length++] = (byte) ('0'
+						+ solution.get(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH));
+			output[length++] = '\n';
+			counts[SOLVED]++;
+		}
+
+		/**
+		 * Grows the output, if the passed count of bytes doesn't fit into it.
+		 * @param bytes count of bytes to add
+		 */
+		private void ensureCapacity(final int bytes) {
+			if (length + bytes > output.length)
+				output = Arrays.copyOf(output, Math.max(output.length * 2, length + bytes));
+		}
+	}
+}
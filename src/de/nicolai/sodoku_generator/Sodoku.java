@@ -1,13 +1,12 @@
 package de.nicolai.sodoku_generator;
 
-import java.util.Arrays;
-
 /**
  * Used to create sodoku and check if it's valid.
+ * The elements are kept in a Grid,
+ * the string based methods convert from and to it.
  * @author Nicolai
  *
  */
-@SuppressWarnings("PMD.AtLeastOneConstructor") // no Constructor needed
 public class Sodoku {
 
 	// Variables
@@ -15,12 +14,34 @@ public class Sodoku {
 	/**
 	 * saves the added numbers.
 	 */
-	private String[][] content = new String[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+	private final Grid content = new Grid();
 	/**
 	 * Count of the correct line.
 	 */
 	private int currentLine;
 
+	// Constructor
+
+	/**
+	 * Creates an empty sodoku.
+	 */
+	public Sodoku() {
+		super();
+	}
+
+	/**
+	 * Creates a sodoku containing the elements of the passed grid.
+	 * Only complete lines from the top count as added lines.
+	 * @param grid the grid to copy
+	 */
+	public Sodoku(final Grid grid) {
+		super();
+		content.copyFrom(grid);
+		while (currentLine < SodokuGenerator.LINE_COUNT
+				&& content.getLineMask(currentLine) == Grid.ALL_ELEMENTS)
+			currentLine++;
+	}
+
 
 	// Methods
 	/**
@@ -30,10 +51,27 @@ public class Sodoku {
 	protected String[][] getContentCopy() {
 		final String[][] contentCopy = new String[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
 		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
-			System.arraycopy(content[i], 0, contentCopy[i], 0, SodokuGenerator.LINE_LENGTH);
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				contentCopy[i][j] = Grid.toString(content.get(i, j));
 		return contentCopy;
 	}
 
+	/**
+	 * Creates a copy of the grid, containing the content.
+	 * @return the copy of the grid
+	 */
+	public Grid getGridCopy() {
+		return new Grid(content);
+	}
+
+	/**
+	 * Returns the grid, containing the content.
+	 * @return the grid of the sodoku
+	 */
+	protected Grid getGrid() {
+		return content;
+	}
+
 	/**
 	 * Get the missing elements in a row.
 	 * @param row to get the missing elements from
@@ -44,26 +82,13 @@ public class Sodoku {
 			return new String[0];
 
 		int mElementPos = 0;
-		final String[] missingElements = new String[SodokuGenerator.LINE_LENGTH - currentLine];
-		final String[] existingElements = getRow(row);
-		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
-			if (!include(existingElements, SodokuGenerator.POSSIBLE_ELEMENTS[i]))
-				missingElements[mElementPos++] = SodokuGenerator.POSSIBLE_ELEMENTS[i];
+		final int missing = Grid.ALL_ELEMENTS & ~content.getRowMask(row);
+		final String[] missingElements = new String[Integer.bitCount(missing)];
+		for (int rest = missing; rest != 0; rest &= rest - 1)
+			missingElements[mElementPos++] = Grid.toString(Integer.numberOfTrailingZeros(rest) + 1);
 		return missingElements;
 	}
 
-	/**
-	 * Gets a specific row of the sodoku.
-	 * @param row row from the sodoku to get
-	 * @return the elements in the passed row
-	 */
-	private String[] getRow(final int row) {
-		String[] elements = new String[currentLine];
-		for (int i = 0; i < currentLine; i++)
-			elements[i] = content[i][row];
-		return elements;
-	}
-
 	/**
 	 * Tests if the current lines are a possible solution.
 	 * @return true if all current rows could be a possible solution
@@ -82,35 +107,9 @@ public class Sodoku {
 	 * @return true if all squares are correct so far
 	 */
 	private boolean testSquares() {
-		final String[] existingElements = new String[SodokuGenerator.LINE_COUNT];
-		for (int i = 0; i < currentLine; i += SodokuGenerator.SQUARE_STEPS) // big lines
-			for (int j = 0; j < SodokuGenerator.LINE_LENGTH;
-					j += SodokuGenerator.SQUARE_STEPS) { // big rows
-				Arrays.fill(existingElements, null); // reset Array (contains wrong data)
-				int index = 0;
-				for (int k = i;	k < i + SodokuGenerator.LINE_COUNT
-						/ SodokuGenerator.SQUARE_STEPS; k++) // lines
-					for (int l = j; l < j +	SodokuGenerator.LINE_LENGTH
-							/ SodokuGenerator.SQUARE_STEPS;	l++, index++) // rows
-						if (!addElementIfNotIncluded(existingElements, content[k][l], index))
-							return false;
-			}
-		return true;
-	}
-
-	/**
-	 * Add element in existingElements at position index,
-	 * if element isn't included in existingElements.
-	 * @param existingElements array to search in
-	 * @param element element to check
-	 * @param index position to add element in existingElements, if it isn't included
-	 * @return true, if element was added at position index
-	 */
-	private boolean addElementIfNotIncluded(final String[] existingElements,
-			final String element, final int index) {
-		if (include(existingElements, element))
-			return false;
-		existingElements[index] = element;
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			if (!content.testSquare(i))
+				return false;
 		return true;
 	}
 
@@ -119,15 +118,9 @@ public class Sodoku {
 	 * @return true if all rows are correct so far
 	 */
 	private boolean testRows() {
-		final String[] existingElements = new String[currentLine + 1];
-		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++) {
-			Arrays.fill(existingElements, null); // reset Array (contains wrong data from last iteration)
-			for (int j = 0; j <= currentLine; j++)
-				if (include(existingElements, content[j][i]))
-					return false;
-				else
-					existingElements[j] = content[j][i];
-		}
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			if (!content.testRow(i))
+				return false;
 		return true;
 	}
 
@@ -138,15 +131,9 @@ public class Sodoku {
 	 * @return true, if all lines are correct
 	 */
 	protected boolean testLines() {
-		final String[] existingElements = new String[SodokuGenerator.LINE_LENGTH];
-		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
-			Arrays.fill(existingElements, null); // reset Array (contains wrong data from last iteration)
-			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
-				if (include(existingElements, content[i][j]))
-					return false;
-				else
-					existingElements[j] = content[i][j];
-		}
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			if (!content.testLine(i))
+				return false;
 		return true;
 	}
 
@@ -174,15 +161,37 @@ public class Sodoku {
 		if (isComplete()) // if sodoku is complete
 			return false;
 
-		// add line to content
-		System.arraycopy(line, 0, content[currentLine], 0, SodokuGenerator.LINE_COUNT);
+		// add line to content, every element is checked while placing it
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			if (!content.place(currentLine, i, Grid.toElement(line[i]))) {
+				// remove the already placed elements of the line
+				for (int j = 0; j < i; j++)
+					content.remove(currentLine, j);
+				return false;
+			}
+		increaseLines();
+		return true;
+	}
 
-		// check if line could be added
-		if (test()) {
-			increaseLines();
-			return true;
-		}
-		return false;
+	/**
+	 * Removes the line added last.
+	 * @return false, if no line were added
+	 */
+	public boolean removeLastLine() {
+		if (currentLine == 0)
+			return false;
+		currentLine--;
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
+			content.remove(currentLine, i);
+		return true;
+	}
+
+	/**
+	 * Returns the count of added lines.
+	 * @return the count of lines
+	 */
+	public int getLineCount() {
+		return currentLine;
 	}
 
 	/**
@@ -211,7 +220,7 @@ public class Sodoku {
 	 */
 	public void reset() {
 		setLine(0);
-		content = new String[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+		content.clear();
 	}
 
 
@@ -221,7 +230,11 @@ public class Sodoku {
 	public final String toString() {
 		final StringBuilder sBuilder = new StringBuilder();
 		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
-			sBuilder.append(String.join(", ", content[i]));
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				if (j > 0)
+					sBuilder.append(", ");
+				sBuilder.append(content.get(i, j));
+			}
 			sBuilder.append('\n');
 		}
 		return sBuilder.toString();
@@ -241,11 +254,14 @@ public class Sodoku {
 
 	/**
 	 * Sets the content of the sodoku.
+	 * Elements breaking the rules are set too, use the test methods to check them.
 	 * @param newContent the new content for the sodoku
 	 */
 	protected void setContent(final String[]... newContent) {
+		content.clear();
 		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
-			System.arraycopy(newContent[i], 0, content[i], 0, SodokuGenerator.LINE_LENGTH);
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				content.set(i, j, Grid.toElement(newContent[i][j]));
 	}
 
 	/**
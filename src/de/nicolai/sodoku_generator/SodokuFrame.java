@@ -9,8 +9,7 @@ import java.awt.Color;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Displays a solvable sodoku and offers the possibility to solve it.
@@ -62,6 +61,14 @@ public class SodokuFrame {
 	 * Background color for the not editable JTextFields of the sodoku.
 	 */
 	private static final Color UNEDITABLE_FIELD = new Color(230, 230, 230);
+	/**
+	 * Background color for the editable JTextFields, which break the rules.
+	 */
+	private static final Color CONFLICT_FIELD = new Color(250, 200, 200);
+	/**
+	 * Checks the uniqueness of the displayed sodokus with all processors, as only one is created at a time.
+	 */
+	private static final ParallelSolutionCounter SOLUTION_COUNTER = new ParallelSolutionCounter();
 	/**
 	 * The frame, the sodoku is displayed in.
 	 */
@@ -74,10 +81,6 @@ public class SodokuFrame {
 	 * The sodoku the frame is for.
 	 */
 	private final SolvableSodoku sodoku;
-	/**
-	 * Used to generate random numbers for random sodoku fields.
-	 */
-	private final Random rand = new Random();
 	/**
 	 * A function to call if the 'Exit' button is pressed.
 	 */
@@ -103,7 +106,30 @@ public class SodokuFrame {
 	 * @return the created SodokuFrame
 	 */
 	public static SodokuFrame displaySodoku(final Sodoku sodoku, final double emptyProbability) {
-		return new SodokuFrame(new SolvableSodoku(sodoku, emptyProbability));
+		return displaySodoku(sodoku, emptyProbability, false);
+	}
+
+	/**
+	 * Creates a SodokuFrame and displays the passed sodoku.
+	 * @param sodoku the sodoku to display
+	 * @param emptyProbability the probability of a sodoku field to be empty
+	 * @param uniqueSolution true, if the displayed sodoku should only have one solution
+	 * @return the created SodokuFrame
+	 */
+	public static SodokuFrame displaySodoku(final Sodoku sodoku, final double emptyProbability,
+			final boolean uniqueSolution) {
+		return new SodokuFrame(new SolvableSodoku(sodoku, emptyProbability, uniqueSolution, new SplittableRandom(),
+				SOLUTION_COUNTER));
+	}
+
+	/**
+	 * Creates a SodokuFrame and displays a minimal puzzle out of the passed sodoku,
+	 * no given element can be removed from without losing the unique solution.
+	 * @param sodoku the sodoku to display
+	 * @return the created SodokuFrame
+	 */
+	public static SodokuFrame displayMinimalSodoku(final Sodoku sodoku) {
+		return new SodokuFrame(SolvableSodoku.createMinimal(sodoku, new SplittableRandom()));
 	}
 
 	// Methods
@@ -121,7 +147,7 @@ public class SodokuFrame {
 	 * @return the created JFrame
 	 */
 	private JFrame createFrame() {
-		final JFrame newFrame = new JFrame("Sodoku");
+		final JFrame newFrame = new JFrame("Sodoku (" + sodoku.getRating().getDifficulty() + ")");
 		final int neededSpace = SQUARE_SIZE + BIG_SQUARE_PAD / BIG_SQUARE_SIZE;
 		final int sodokuWidth = SodokuGenerator.LINE_COUNT * neededSpace;
 		final int sodokuHeight = SodokuGenerator.LINE_LENGTH * neededSpace;
@@ -256,17 +282,47 @@ public class SodokuFrame {
 				final char inp = event.getKeyChar();
 				tField.setText(""); // char will be added after this method
 				if (inp >= '0' && inp <= '9') {
-					sodoku.getField(line, row).trySetValue(Character.toString(inp));
+					sodoku.trySetValue(line, row, Character.toString(inp));
+					markConflicts(line, row);
 					if (sodoku.isSolved()) {
 						sodokuSolved();
 						tField.setText(Character.toString(inp));
 						tField.setFocusable(false);
 					}
+				} else { // field got cleared
+					sodoku.trySetValue(line, row, null);
+					markConflicts(line, row);
 				}
 			}
 		};
 	}
 
+	/**
+	 * Updates the background of the editable fields,
+	 * which share the line, row or square with the passed field.
+	 * @param line the line of the changed field
+	 * @param row the row of the changed field
+	 */
+	private void markConflicts(final int line, final int row) {
+		final int firstLine = line / BIG_SQUARE_SIZE * BIG_SQUARE_SIZE;
+		final int firstRow = row / BIG_SQUARE_SIZE * BIG_SQUARE_SIZE;
+		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++) {
+			markConflict(line, i);
+			markConflict(i, row);
+			markConflict(firstLine + i / BIG_SQUARE_SIZE, firstRow + i % BIG_SQUARE_SIZE);
+		}
+	}
+
+	/**
+	 * Sets the background of an editable field, depending on whether it breaks the rules.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 */
+	private void markConflict(final int line, final int row) {
+		if (fields[line][row].isEditable())
+			fields[line][row].setBackground(sodoku.isConflicting(line, row) ? CONFLICT_FIELD : EDITABLE_FIELD);
+	}
+
 	/**
 	 * Should be called, if the sodoku were solved.
 	 */
@@ -296,26 +352,17 @@ public class SodokuFrame {
 	}
 
 	/**
-	 * Reveals a field.
+	 * Reveals the next field, which can be filled by logic,
+	 * and shows the needed technique as tooltip of the field.
 	 */
-	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops") // to save two elements in ArrayList instead of one
 	private void help() {
-		final ArrayList<int[]> insertedFields = new ArrayList<>();
-		final ArrayList<int[]> emptyFields = new ArrayList<>();
-		for (int i = 0; i < fields.length; i++)
-			for (int j = 0; j < fields[i].length; j++)
-				if (fields[i][j].isEditable()) {
-					if (fields[i][j].getText().equals(""))
-						emptyFields.add(new int[] {i, j});
-					else
-						insertedFields.add(new int[] {i, j});
-				}
-		if (insertedFields.isEmpty() && emptyFields.isEmpty())
+		final HintEngine.Hint hint = sodoku.getHint();
+		if (hint == null) {
 			solve(); // no open fields left
-		else if (emptyFields.isEmpty())
-			solveField(insertedFields.get(rand.nextInt(insertedFields.size())));
-		else
-			solveField(emptyFields.get(rand.nextInt(emptyFields.size())));
+		} else {
+			fields[hint.getLine()][hint.getRow()].setToolTipText(hint.toString());
+			solveField(hint.getLine(), hint.getRow());
+		}
 	}
 
 	/**
@@ -328,6 +375,7 @@ public class SodokuFrame {
 		field.setText(newValue);
 		sodoku.trySetValue(positions[0], positions[1], newValue);
 		markAsSolved(field);
+		markConflicts(positions[0], positions[1]);
 		if (sodoku.isSolved())
 			sodokuSolved();
 	}
@@ -1,11 +1,17 @@
 package de.nicolai.sodoku_generator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
-
-import java.util.Random;
-
+import java.util.function.Supplier;
 
 /**
  * Used to create sodokus.
@@ -23,14 +29,6 @@ public class SodokuGenerator {
 	 * All possible elements for the permutation for lines.
 	 */
 	protected static final String[] POSSIBLE_ELEMENTS = {"1", "2", "3", "4", "5", "6", "7", "8", "9"};
-	/**
-	 * Count of elements in POSSIBLE_ELEMENTS.
-	 */
-	private static final int LINE_ELEMENTS = 362_880; // 362_880 == 9!
-	/**
-	 * Max count of tries to find a new possible line in the sodoku.
-	 */
-	private static final int MAX_TRIES = 5_000;
 	/**
 	 * Count of lines in the sodoku.
 	 */
@@ -43,6 +41,22 @@ public class SodokuGenerator {
 	 * Step size for checking the squares.
 	 */
 	public static final int SQUARE_STEPS = 3;
+	/**
+	 * Max count of blocks per thread, which are generated but not passed on yet.
+	 */
+	private static final int PENDING_BLOCKS_PER_THREAD = 2;
+	/**
+	 * Max count of sodokus generated in one block.
+	 */
+	private static final int MAX_BLOCK_SIZE = 256;
+	/**
+	 * First multiplier of the 64 bit mix function (Stafford variant 13).
+	 */
+	private static final long MIX_MULTIPLIER_1 = 0xBF58_476D_1CE4_E5B9L;
+	/**
+	 * Second multiplier of the 64 bit mix function.
+	 */
+	private static final long MIX_MULTIPLIER_2 = 0x94D0_49BB_1331_11EBL;
 
 	// Attributes
 
@@ -51,24 +65,42 @@ public class SodokuGenerator {
 	 */
 	private final List<String> solutions = new ArrayList<>();
 	/**
-	 * Saves all possible combinations of different lines.
+	 * Creates the engines used to fill the sodokus, one for each thread.
 	 */
-	private static final String[][] LINES = new String[LINE_ELEMENTS][LINE_COUNT];
+	private final Supplier<? extends GridEngine> engineFactory;
 	/**
-	 * Keeps the position where to insert the next line in lines array.
+	 * Used to generate the sodokus without threads.
 	 */
-	private static int position;
+	private final Worker worker;
 	/**
-	 * Used to generate random numbers.
+	 * The seed, the random of every numbered sodoku is derived from.
 	 */
-	private final IndexGenerator iGenerator = new IndexGenerator(LINE_ELEMENTS);
-
+	private final long seed;
 	/**
-	 * Generates all possible lines.
+	 * Used for the random decisions of sodokus without number.
 	 */
-	static {
-		permute(POSSIBLE_ELEMENTS, 0, LINE_COUNT - 1);
-	}
+	private final SplittableRandom random;
+	/**
+	 * Number of the next generated sodoku.
+	 */
+	private int nextNumber = 1;
+	/**
+	 * Probability of a field to be empty in the generated puzzles,
+	 * negative to generate complete sodokus.
+	 */
+	private double puzzleProbability = -1;
+	/**
+	 * True, if minimal puzzles are generated, no given element can be removed from.
+	 */
+	private boolean minimalPuzzles;
+	/**
+	 * Count of transforms created out of every searched sodoku, 0 to search every sodoku.
+	 */
+	private int transforms;
+	/**
+	 * Keys of the canonical forms of the generated sodokus, null to keep duplicates.
+	 */
+	private KeySet keys;
 
 	// Constructor
 
@@ -84,36 +116,70 @@ public class SodokuGenerator {
 	 * @param generateLines if the lines should be generated by initializing
 	 */
 	public SodokuGenerator(final boolean generateLines) {
+		this(BacktrackingEngine::new);
+	}
+
+	/**
+	 * Initializing object, using engines of the passed factory to fill the sodokus.
+	 * @param gridEngineFactory creates the engines used to fill the sodokus
+	 */
+	public SodokuGenerator(final Supplier<? extends GridEngine> gridEngineFactory) {
+		this(gridEngineFactory, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * Initializing object, using engines of the passed factory to fill the sodokus.
+	 * Generators with the same seed generate the same sodokus,
+	 * no matter how many threads are used.
+	 * @param gridEngineFactory creates the engines used to fill the sodokus
+	 * @param sSeed the seed for all random decisions
+	 */
+	public SodokuGenerator(final Supplier<? extends GridEngine> gridEngineFactory, final long sSeed) {
 		super();
+		engineFactory = gridEngineFactory;
+		worker = new Worker(gridEngineFactory.get());
+		seed = sSeed;
+		random = new SplittableRandom(sSeed);
 	}
 
 	// static Methods
 
 	/**
-	 * Adds permutations to lines array.
-	 * @param elements strings to build permutation of
-	 * @param leftPos left point
-	 * @param rightPos right point
-	 */
-    private static void permute(final String[] elements, final int leftPos, final int rightPos) {
-        if (leftPos == rightPos) {
-        	// add new line
-            System.arraycopy(elements, 0, LINES[position], 0, LINE_COUNT);
-            position++;
-        } else {
-        	// create copy for recursion
-        	String[] elementsCopy = new String[LINE_COUNT];
-            for (int i = leftPos; i <= rightPos; i++) {
-            	System.arraycopy(elements, 0, elementsCopy, 0, LINE_COUNT);
-            	// switch elements
-            	final String tmp = elementsCopy[leftPos];
-            	elementsCopy[leftPos] = elementsCopy[i];
-            	elementsCopy[i] = tmp;
-            	// recursive call
-                permute(elementsCopy, leftPos + 1, rightPos);
-            }
-        }
-    }
+	 * Generates the complete sodoku with the passed number,
+	 * without generating the sodokus before it.
+	 * It's the same sodoku a generator with this seed generates with this number.
+	 * @param seed the seed of the generator
+	 * @param number the number of the sodoku
+	 * @return the generated sodoku
+	 */
+	public static Sodoku puzzleAt(final long seed, final int number) {
+		return new SodokuGenerator(BacktrackingEngine::new, seed).getSodoku(number);
+	}
+
+	/**
+	 * Generates the rated puzzle with a unique solution with the passed number,
+	 * without generating the puzzles before it.
+	 * @param seed the seed of the generator
+	 * @param number the number of the puzzle
+	 * @param emptyProbability probability of a field to be empty
+	 * @return the generated puzzle
+	 */
+	public static SolvableSodoku puzzleAt(final long seed, final int number, final double emptyProbability) {
+		final SodokuGenerator generator = new SodokuGenerator(BacktrackingEngine::new, seed);
+		generator.setPuzzleProbability(emptyProbability);
+		return (SolvableSodoku) generator.getSodoku(number);
+	}
+
+	/**
+	 * Mixes the bits of a value, so similar values lead to unrelated results.
+	 * @param value the value to mix
+	 * @return the mixed value
+	 */
+	static long mix(final long value) {
+		long mixed = (value ^ (value >>> 30)) * MIX_MULTIPLIER_1;
+		mixed = (mixed ^ (mixed >>> 27)) * MIX_MULTIPLIER_2;
+		return mixed ^ (mixed >>> 31);
+	}
 
 	// Methods
 
@@ -122,52 +188,124 @@ public class SodokuGenerator {
 	 */
 	public void generateSodoku() {
 		// add sodoku to solutions
-		solutions.add(getSodoku().getStringRepresentation(solutions.size() + 1));
+		generateSodokus(1, 1, solutions::add);
 	}
 
 	/**
-	 * Generates a new sodoku.
-	 * @return the generated sodoku
+	 * Generates the passed count of sodokus using multiple threads
+	 * and adds them to the solution.
+	 * @param count count of sodokus to generate
+	 * @param threads count of threads to use
 	 */
-	public Sodoku getSodoku() {
-		// Generate sodokus
-		final Sodoku sodoku = new Sodoku();
-
-		// find solution
-		while (!sodoku.isComplete()) { // new try for each iteration
-			sodoku.reset();
-			boolean reset = false;
-			for (int i = 0; i < LINE_COUNT - 1 && !reset; i++) { // try to find 7 solutions
-				reset = true; // ends the last loop if no solution is found fast enough
-				for (int j = 0; j < (i * i + 1) * MAX_TRIES; j++)
-					if (sodoku.addLine(LINES[getRandomLineNumber()])) {
-						// possible solution found
-						reset = false; // block reset
-						break;
+	public void generateSodokus(final int count, final int threads) {
+		generateSodokus(count, threads, solutions::add);
+	}
+
+	/**
+	 * Generates the passed count of sodokus using multiple threads
+	 * and passes each string representation to out, as soon as it's generated.
+	 * @param count count of sodokus to generate
+	 * @param threads count of threads to use
+	 * @param out Consumer object, which gets the sodokus in order
+	 */
+	public void generateSodokus(final int count, final int threads, final Consumer<String> out) {
+		generateSodokus(count, threads, Sodoku::getStringRepresentation, out);
+	}
+
+	/**
+	 * Generates the passed count of sodokus using multiple threads,
+	 * converts them in the generating thread
+	 * and passes each result to out, as soon as it's generated.
+	 * Every thread uses its own engine and every sodoku a random derived from its number,
+	 * so the numbering, order and content don't depend on the count of threads.
+	 * Without duplicates, the numbers of the skipped sodokus are left out.
+	 * Only a few blocks per thread are kept in memory at a time,
+	 * so the memory usage doesn't depend on count.
+	 * @param <T> type of the converted sodokus
+	 * @param count count of sodokus to generate
+	 * @param threads count of threads to use
+	 * @param converter converts a sodoku and its number
+	 * @param out Consumer object, which gets the converted sodokus in order
+	 */
+	public <T> void generateSodokus(final int count, final int threads,
+			final BiFunction<Sodoku, Integer, T> converter, final Consumer<? super T> out) {
+		if (threads <= 1 || count <= 1) {
+			int passed = 0;
+			while (passed < count) {
+				final Generated<T> generated = worker.generate(nextNumber++, converter);
+				if (isNew(generated)) {
+					out.accept(generated.value);
+					passed++;
+				}
+			}
+			return;
+		}
+
+		final ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> new Worker(engineFactory.get()));
+		final Deque<Future<List<Generated<T>>>> pending = new ArrayDeque<>();
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			int passed = 0;
+			int scheduled = 0; // count of sodokus in pending
+			int blockStart = nextNumber;
+			int blockSize = 1; // grows, so the first sodoku is passed on fast
+			while (passed < count) {
+				while (passed + scheduled < count && pending.size() < threads * PENDING_BLOCKS_PER_THREAD) {
+					final int start = blockStart;
+					final int length = Math.min(blockSize, count - passed - scheduled);
+					pending.add(pool.submit(() -> workers.get().generateBlock(start, length, converter)));
+					scheduled += length;
+					blockStart += length;
+					blockSize = Math.min(blockSize * 2, MAX_BLOCK_SIZE);
+				}
+				final List<Generated<T>> block = pending.poll().get();
+				scheduled -= block.size();
+				for (int i = 0; i < block.size() && passed < count; i++) {
+					final Generated<T> generated = block.get(i);
+					nextNumber = generated.number + 1;
+					if (isNew(generated)) {
+						out.accept(generated.value);
+						passed++;
 					}
+				}
 			}
-			generateLastLine(sodoku);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while generating sodokus.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Couldn't generate sodokus.", e.getCause());
+		} finally {
+			pool.shutdownNow();
 		}
-		return sodoku;
 	}
 
 	/**
-	 * Adds the last line to a sodoku, if possible.
-	 * @param sodoku sodoku to add the last line to
+	 * Checks if a generated sodoku isn't equal to one generated before
+	 * and remembers it.
+	 * @param generated the generated sodoku
+	 * @return true, if the sodoku should be passed on
+	 */
+	private boolean isNew(final Generated<?> generated) {
+		return keys == null || keys.add(generated.keyHigh, generated.keyLow);
+	}
+
+	/**
+	 * Generates a new sodoku.
+	 * @return the generated sodoku
 	 */
-	private void generateLastLine(final Sodoku sodoku) {
-		final String[] lastLine = new String[LINE_LENGTH];
-		for (int i = 0; i < SodokuGenerator.LINE_LENGTH; i++)
-			lastLine[i] = sodoku.getMissingElementsOfRow(i)[0];
-		sodoku.addLine(lastLine);
+	public Sodoku getSodoku() {
+		return worker.engine.generate(random);
 	}
 
 	/**
-	 * Create a random index in range of the lines.
-	 * @return the random index of the line
+	 * Generates the sodoku with the passed number.
+	 * It only depends on the seed and the number,
+	 * so every sodoku can be generated without generating the ones before it.
+	 * @param number the number of the sodoku
+	 * @return the generated sodoku or puzzle, depending on the puzzle probability
 	 */
-	private int getRandomLineNumber() {
-		return iGenerator.getIndex();
+	public Sodoku getSodoku(final int number) {
+		return worker.createSodoku(number);
 	}
 
 	/**
@@ -179,6 +317,55 @@ public class SodokuGenerator {
 		solutions.forEach(file);
 	}
 
+	/**
+	 * Sets the number of the first generated sodoku,
+	 * so separate runs can generate disjoint ranges of sodokus.
+	 * @param number the number of the first sodoku
+	 */
+	public void setFirstNumber(final int number) {
+		nextNumber = number;
+	}
+
+	/**
+	 * Sets whether sodokus equal to one generated before are skipped.
+	 * Sodokus are equal, if they can be transformed into each other
+	 * by relabeling, swapping lines, rows, bands or stacks and transposing,
+	 * so this skips all transformed sodokus too.
+	 * @param skipDuplicates true, to generate distinct sodokus only
+	 */
+	public void setSkipDuplicates(final boolean skipDuplicates) {
+		keys = skipDuplicates ? new KeySet() : null;
+	}
+
+	/**
+	 * Sets the count of transforms created out of every searched sodoku.
+	 * Transforming costs a fraction of searching,
+	 * so the throughput grows with the count of transforms.
+	 * @param count count of transforms per searched sodoku, 0 to search every sodoku
+	 */
+	public void setTransforms(final int count) {
+		transforms = count;
+	}
+
+	/**
+	 * Sets the probability of a field to be empty, for generating puzzles
+	 * with a unique solution and their difficulty rating, instead of complete sodokus.
+	 * @param emptyProbability probability of a field to be empty, negative for complete sodokus
+	 */
+	public void setPuzzleProbability(final double emptyProbability) {
+		puzzleProbability = emptyProbability;
+	}
+
+	/**
+	 * Sets if minimal puzzles are generated with their difficulty rating,
+	 * no given element can be removed from without losing the unique solution.
+	 * The probability of a field to be empty is ignored then.
+	 * @param minimal true, to generate minimal puzzles
+	 */
+	public void setMinimalPuzzles(final boolean minimal) {
+		minimalPuzzles = minimal;
+	}
+
 	// Overrides
 
 	/**
@@ -193,63 +380,148 @@ public class SodokuGenerator {
 	// inner classes
 
 	/**
-	 * Used to generate random indexes for accessing the LINE array
-	 * and get random lines.
-	 * Creates 4 random numbers at a time,
-	 * which associated lines are as different as possible.
+	 * Keeps everything a thread needs to generate sodokus.
 	 * @author Nicolai
 	 *
 	 */
-	private class IndexGenerator {
+	private final class Worker {
 		/**
-		 * The number of generated indexes for each random number.
+		 * Used to fill the sodokus.
 		 */
-		private static final int BUFFER_SIZE = 4;
+		private final GridEngine engine;
 		/**
-		 * For creating random numbers.
+		 * Creates the transformed sodokus.
 		 */
-		private final Random numberGenerator = new Random();
+		private final GridTransformer transformer = new GridTransformer();
 		/**
-		 * A quarter of the array length, the indexes are for.
+		 * Computes the keys of the sodokus, to find duplicates.
 		 */
-		private final int elementQuarter;
+		private final CanonicalForm canonicalForm = new CanonicalForm();
+
 		/**
-		 * Saves the 4 random numbers.
+		 * Creates a worker using the passed engine.
+		 * @param gridEngine the engine to fill the sodokus with
 		 */
-		private int[] intBuffer = new int[BUFFER_SIZE];
+		Worker(final GridEngine gridEngine) {
+			engine = gridEngine;
+		}
+
 		/**
-		 * Position of the index in the buffer, which should be returned next.
+		 * Generates a block of sodokus with consecutive numbers.
+		 * @param <T> type of the converted sodokus
+		 * @param blockStart the number of the first sodoku in the block
+		 * @param length count of sodokus in the block
+		 * @param converter converts a sodoku and its number
+		 * @return the converted sodokus
 		 */
-		private int bufferPos;
+		<T> List<Generated<T>> generateBlock(final int blockStart, final int length,
+				final BiFunction<Sodoku, Integer, T> converter) {
+			final List<Generated<T>> block = new ArrayList<>(length);
+			for (int i = 0; i < length; i++)
+				block.add(generate(blockStart + i, converter));
+			return block;
+		}
 
-		// Methods
+		/**
+		 * Generates a sodoku, converts it
+		 * and computes the key of its canonical form, if duplicates are skipped.
+		 * @param <T> type of the converted sodoku
+		 * @param number the number of the sodoku
+		 * @param converter converts a sodoku and its number
+		 * @return the converted sodoku
+		 */
+		<T> Generated<T> generate(final int number, final BiFunction<Sodoku, Integer, T> converter) {
+			final Sodoku sodoku = createSodoku(number);
+			if (keys == null)
+				return new Generated<>(number, converter.apply(sodoku, number), 0, 0);
+			if (sodoku instanceof SolvableSodoku)
+				canonicalForm.canonicalize(((SolvableSodoku) sodoku).getSolutionGrid(),
+						((SolvableSodoku) sodoku).getGivenGrid());
+			else
+				canonicalForm.canonicalize(sodoku.getGrid());
+			return new Generated<>(number, converter.apply(sodoku, number),
+					canonicalForm.getKeyHigh(), canonicalForm.getKeyLow());
+		}
 
 		/**
-		 * Creates an IndexGenerator object matching an array of size arrSize.
-		 * @param arrSize size of the array, the index is for
+		 * Generates a complete sodoku or a rated puzzle with a unique solution,
+		 * depending on the puzzle probability.
+		 * With transforms, every group of transforms + 1 numbers shares a searched base sodoku,
+		 * the first of the group is the base itself, the others are transforms of it.
+		 * @param number the number of the sodoku, the random is derived from
+		 * @return the generated sodoku
 		 */
-		public IndexGenerator(final int arrSize) {
-			elementQuarter = arrSize / BUFFER_SIZE;
+		Sodoku createSodoku(final int number) {
+			final SplittableRandom sRandom = new SplittableRandom(mix(mix(seed) + number));
+			final Sodoku sodoku;
+			if (transforms <= 0) {
+				sodoku = search(sRandom);
+			} else {
+				final long group = transforms + 1L;
+				final long baseNumber = Math.floorDiv(number, group);
+				if (!transformer.hasBase(baseNumber))
+					transformer.setBase(baseNumber, search(new SplittableRandom(mix(mix(~seed) + baseNumber))));
+				sodoku = Math.floorMod(number, group) == 0
+						? transformer.getBase() : transformer.transform(sRandom);
+			}
+			if (puzzleProbability < 0 && !minimalPuzzles)
+				return sodoku;
+			final SolvableSodoku puzzle = minimalPuzzles ? SolvableSodoku.createMinimal(sodoku, sRandom)
+					: new SolvableSodoku(sodoku, puzzleProbability, true, sRandom);
+			puzzle.getRating(); // rate in the generating thread
+			return puzzle;
 		}
 
 		/**
-		 * Returns a possible index for the LINE array.
-		 * @return the line index
+		 * Searches a complete sodoku with the engine and records the time of the search,
+		 * so the grid times of the stats don't include the cheap transforms.
+		 * @param random the random to fill the sodoku with
+		 * @return the searched sodoku
 		 */
-		public int getIndex() {
-			if (bufferPos >= BUFFER_SIZE)
-				generateNewNumbers();
-			return intBuffer[bufferPos++];
+		private Sodoku search(final SplittableRandom random) {
+			final long start = System.nanoTime();
+			final Sodoku sodoku = engine.generate(random);
+			GeneratorStats.get().recordGrid(System.nanoTime() - start);
+			return sodoku;
 		}
+	}
+
+	/**
+	 * A generated and converted sodoku with its number and key.
+	 * @author Nicolai
+	 *
+	 * @param <T> type of the converted sodoku
+	 */
+	private static final class Generated<T> {
+		/**
+		 * The number of the sodoku.
+		 */
+		private final int number;
+		/**
+		 * The converted sodoku.
+		 */
+		private final T value;
+		/**
+		 * The first half of the key of the canonical form.
+		 */
+		private final long keyHigh;
+		/**
+		 * The second half of the key of the canonical form.
+		 */
+		private final long keyLow;
 
 		/**
-		 * Generates the next 4 indexes from a random number.
+		 * Keeps the passed values.
+		 * @param sNumber the number of the sodoku
+		 * @param sValue the converted sodoku
+		 * @param sKeyHigh the first half of the key
+		 * @param sKeyLow the second half of the key
 		 */
-		private void generateNewNumbers() {
-			final int randNum = numberGenerator.nextInt(LINE_ELEMENTS);
-			bufferPos = 0;
-			for (int i = 0; i < BUFFER_SIZE; i++)
-				intBuffer[i] = (randNum + elementQuarter * i) % LINE_ELEMENTS;
+		Generated(final int sNumber, final T sValue, final long sKeyHigh, final long sKeyLow) {
+			number = sNumber;
+			value = sValue;
+			keyHigh = sKeyHigh;
+			keyLow = sKeyLow;
 		}
 	}
 }
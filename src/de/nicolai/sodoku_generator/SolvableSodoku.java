@@ -1,6 +1,6 @@
 package de.nicolai.sodoku_generator;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * A sodoku offering the possibility to solve it.
@@ -8,23 +8,64 @@ import java.util.Random;
  *
  */
 public class SolvableSodoku extends Sodoku {
-	/**
-	 * Used to get random doubles to get probabilities.
-	 */
-	private static final Random RAND = new Random();
 	/**
 	 * Multiplied to a random double, to get percentage.
 	 */
 	private static final double PROCENT_RANGE = 100.0;
+	/**
+	 * Displayed instead of the value of empty fields.
+	 */
+	private static final String EMPTY_FIELD = "_";
+	/**
+	 * Count of minimal sodokus created out of a solution, the one with the fewest given elements is kept.
+	 */
+	public static final int MINIMAL_ATTEMPTS = 16;
+	/**
+	 * Max count of sodokus carved out of a solution, until one has the difficulty aimed for.
+	 */
+	public static final int RATED_ATTEMPTS = 32;
 	/**
 	 * Contains a solution for the sodoku.
 	 */
-	private final String[][] solvedSodoku;
+	private final Grid solvedSodoku;
+	/**
+	 * Contains the given elements, the player starts with.
+	 */
+	private final Grid givenSodoku = new Grid();
+	/**
+	 * The difficulty rating of the given elements, null until it's requested.
+	 */
+	private DifficultyRater.Rating rating;
+	/**
+	 * Finds the hints, null until the first hint is requested.
+	 */
+	private HintEngine hintEngine;
 	/**
 	 * Contains the current guessed and set values.
 	 */
 	private final SodokuField[][] openSodoku
 			= new SodokuField[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of every element (index 0-8 for 1-9) in every line.
+	 */
+	private final byte[][] lineCounts = new byte[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of every element in every row.
+	 */
+	private final byte[][] rowCounts = new byte[SodokuGenerator.LINE_LENGTH][SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of every element in every square.
+	 */
+	private final byte[][] squareCounts = new byte[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+	/**
+	 * Count of fields containing an element.
+	 */
+	private int filledCount;
+	/**
+	 * Count of elements, which are already contained in one of their line, row or square.
+	 * Every unit counts separately, so an element can add up to three.
+	 */
+	private int conflictCount;
 
 	// Constructor
 
@@ -35,9 +76,125 @@ public class SolvableSodoku extends Sodoku {
 	 * @param emptyProbability probability of a field to be empty
 	 */
 	public SolvableSodoku(final Sodoku sodoku, final double emptyProbability) {
+		this(sodoku, emptyProbability, false);
+	}
+
+	/**
+	 * Creates a solvable sodoku from an existing solved one.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create this solvable sodoku
+	 * @param emptyProbability probability of a field to be empty
+	 * @param uniqueSolution true, if the sodoku should only have one solution;
+	 * fields are kept then, if removing them would allow more solutions
+	 */
+	public SolvableSodoku(final Sodoku sodoku, final double emptyProbability, final boolean uniqueSolution) {
+		this(sodoku, emptyProbability, uniqueSolution, new SplittableRandom());
+	}
+
+	/**
+	 * Creates a solvable sodoku from an existing solved one.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create this solvable sodoku
+	 * @param emptyProbability probability of a field to be empty
+	 * @param uniqueSolution true, if the sodoku should only have one solution;
+	 * fields are kept then, if removing them would allow more solutions
+	 * @param random used to choose the empty fields
+	 */
+	public SolvableSodoku(final Sodoku sodoku, final double emptyProbability, final boolean uniqueSolution,
+			final SplittableRandom random) {
+		this(sodoku, emptyProbability, uniqueSolution, random, null);
+	}
+
+	/**
+	 * Creates a solvable sodoku from an existing solved one.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create this solvable sodoku
+	 * @param emptyProbability probability of a field to be empty
+	 * @param uniqueSolution true, if the sodoku should only have one solution;
+	 * fields are kept then, if removing them would allow more solutions
+	 * @param random used to choose the empty fields
+	 * @param counter checks the uniqueness of sparse grids with several threads,
+	 * null to check them in the calling thread, like when many sodokus are created at once
+	 */
+	public SolvableSodoku(final Sodoku sodoku, final double emptyProbability, final boolean uniqueSolution,
+			final SplittableRandom random, final ParallelSolutionCounter counter) {
+		super();
+		solvedSodoku = sodoku.getGridCopy();
+		if (uniqueSolution)
+			createOpenSodoku(carveUniqueSodoku(emptyProbability, random, counter));
+		else
+			createOpenSodoku(emptyProbability, random);
+	}
+
+	/**
+	 * Creates a minimal sodoku from an existing solved one.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create this solvable sodoku
+	 * @param random used to choose the order the fields are removed in
+	 */
+	private SolvableSodoku(final Sodoku sodoku, final SplittableRandom random) {
 		super();
-		solvedSodoku = sodoku.getContentCopy();
-		createOpenSodoku(emptyProbability);
+		solvedSodoku = sodoku.getGridCopy();
+		createOpenSodoku(minimizeSodoku(random));
+	}
+
+	/**
+	 * Creates a sodoku of the passed difficulty, if possible, from an existing solved one.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create this solvable sodoku
+	 * @param target the difficulty to aim for
+	 * @param random used to choose the order the fields are removed and given back in
+	 */
+	private SolvableSodoku(final Sodoku sodoku, final Difficulty target, final SplittableRandom random) {
+		super();
+		solvedSodoku = sodoku.getGridCopy();
+		createOpenSodoku(rateSodoku(target, random));
+	}
+
+	// static Methods
+
+	/**
+	 * Creates a minimal sodoku, no given element can be removed from without losing the unique solution.
+	 * Out of MINIMAL_ATTEMPTS removal orders, the one leaving the fewest given elements is used.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create the solvable sodoku
+	 * @param random used to choose the order the fields are removed in
+	 * @return the minimal sodoku
+	 */
+	public static SolvableSodoku createMinimal(final Sodoku sodoku, final SplittableRandom random) {
+		return new SolvableSodoku(sodoku, random);
+	}
+
+	/**
+	 * Creates a sodoku aiming for the passed difficulty.
+	 * All fields are removed, as long as the solution stays unique and the sodoku doesn't get harder than target.
+	 * This is repeated with other orders of the fields, until the sodoku reaches target,
+	 * at most RATED_ATTEMPTS times, and the hardest sodoku is kept otherwise.
+	 * @param sodoku a solved sodoku,
+	 * which content is used to create the solvable sodoku
+	 * @param target the difficulty to aim for
+	 * @param random used to choose the order the fields are removed and given back in
+	 * @return the rated sodoku, at most as hard as target
+	 */
+	public static SolvableSodoku createRated(final Sodoku sodoku, final Difficulty target,
+			final SplittableRandom random) {
+		return new SolvableSodoku(sodoku, target, random);
+	}
+
+	/**
+	 * Shuffles the indices of all fields.
+	 * @param order receives the shuffled indices
+	 * @param random used to shuffle
+	 */
+	private static void shuffleFields(final int[] order, final SplittableRandom random) {
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			order[i] = i;
+		for (int i = Grid.FIELD_COUNT - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
 	}
 
 	// Methods
@@ -45,31 +202,320 @@ public class SolvableSodoku extends Sodoku {
 	/**
 	 * Removes the passed amount of elements out of the sodoku, if possible.
 	 * @param emptyProbability probability of a field to be empty
+	 * @param random used to choose the empty fields
 	 */
-	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops") // method exists to initialize these objects
-	private void createOpenSodoku(final double emptyProbability) {
+	private void createOpenSodoku(final double emptyProbability, final SplittableRandom random) {
+		final Grid puzzle = new Grid(solvedSodoku);
 		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
 			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
-				if (emptyProbability < RAND.nextDouble() * PROCENT_RANGE)
-					openSodoku[i][j] = new SodokuField(solvedSodoku[i][j]);
-				else
-					openSodoku[i][j] = new SodokuField(null);
+				if (emptyProbability >= random.nextDouble() * PROCENT_RANGE)
+					puzzle.remove(i, j);
+		createOpenSodoku(puzzle);
+	}
+
+	/**
+	 * Removes elements one by one in random order out of the solution,
+	 * as long as the sodoku keeps a unique solution
+	 * and less than the expected count of fields is empty.
+	 * A field is kept, if the solver finds a solution with another element in it.
+	 * Once kept, a field stays needed, as removing more fields only allows more solutions,
+	 * so every field is tried once and all of them are tried, if emptyProbability is 100.
+	 * @param emptyProbability probability of a field to be empty
+	 * @param random used to choose the order of the fields
+	 * @param counter checks the uniqueness with several threads, null to use a single solver
+	 * @return the grid with the remaining elements
+	 */
+	private Grid carveUniqueSodoku(final double emptyProbability, final SplittableRandom random,
+			final ParallelSolutionCounter counter) {
+		final Grid puzzle = new Grid(solvedSodoku);
+		final DancingLinks solver = new DancingLinks();
+		final int maxEmpty = (int) Math.round(emptyProbability / PROCENT_RANGE * Grid.FIELD_COUNT);
+		final int[] order = new int[Grid.FIELD_COUNT];
+		shuffleFields(order, random);
+
+		int empty = 0;
+		for (int i = 0; i < Grid.FIELD_COUNT && empty < maxEmpty; i++) {
+			final int line = order[i] / SodokuGenerator.LINE_LENGTH;
+			final int row = order[i] % SodokuGenerator.LINE_LENGTH;
+			final byte element = puzzle.get(line, row);
+			puzzle.remove(line, row);
+			if (counter == null ? !solver.hasOtherSolution(puzzle, line, row, element)
+					: counter.hasUniqueSolution(puzzle))
+				empty++;
+			else
+				puzzle.set(line, row, element); // keep the field
+		}
+		return puzzle;
+	}
+
+	/**
+	 * Carves sodokus with carveRatedSodoku, until one reaches target or RATED_ATTEMPTS are carved.
+	 * Sets the rating of the returned grid.
+	 * @param target the difficulty to aim for
+	 * @param random used to choose the orders of the fields
+	 * @return the first grid reaching target, the hardest one otherwise
+	 */
+	private Grid rateSodoku(final Difficulty target, final SplittableRandom random) {
+		final DancingLinks solver = new DancingLinks();
+		final DifficultyRater rater = new DifficultyRater();
+		final int[] order = new int[Grid.FIELD_COUNT];
+		final Grid puzzle = new Grid();
+		final Grid best = new Grid();
+		DifficultyRater.Rating bestRating = null;
+		for (int attempt = 0; attempt < RATED_ATTEMPTS; attempt++) {
+			final DifficultyRater.Rating puzzleRating = carveRatedSodoku(puzzle, target, solver, rater, order, random);
+			if (bestRating == null || puzzleRating.getDifficulty().compareTo(bestRating.getDifficulty()) > 0) {
+				best.copyFrom(puzzle);
+				bestRating = puzzleRating;
+				if (bestRating.getDifficulty() == target)
+					break;
+			}
+		}
+		rating = bestRating;
+		return best;
+	}
+
+	/**
+	 * Removes elements one by one in random order out of the solution,
+	 * as long as the sodoku keeps a unique solution and doesn't get harder than target.
+	 * Like carveUniqueSodoku, but a field is kept as well, if removing it would need a harder technique,
+	 * so the sodoku ends up as hard as this order allows, but not harder than target.
+	 * @param puzzle receives the remaining elements
+	 * @param target the hardest difficulty allowed
+	 * @param solver checks the uniqueness
+	 * @param rater rates the sodoku after every removal
+	 * @param order buffer for the order of the fields
+	 * @param random used to choose the order of the fields
+	 * @return the rating of the sodoku
+	 */
+	private DifficultyRater.Rating carveRatedSodoku(final Grid puzzle, final Difficulty target,
+			final DancingLinks solver, final DifficultyRater rater, final int[] order, final SplittableRandom random) {
+		puzzle.copyFrom(solvedSodoku);
+		shuffleFields(order, random);
+		DifficultyRater.Rating puzzleRating = rater.rate(puzzle);
+		for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+			final int line = order[i] / SodokuGenerator.LINE_LENGTH;
+			final int row = order[i] % SodokuGenerator.LINE_LENGTH;
+			final byte element = puzzle.get(line, row);
+			puzzle.remove(line, row);
+			if (solver.hasOtherSolution(puzzle, line, row, element)) {
+				puzzle.set(line, row, element); // keep the field
+				continue;
+			}
+			final DifficultyRater.Rating removedRating = rater.rate(puzzle);
+			if (removedRating.getDifficulty().compareTo(target) > 0)
+				puzzle.set(line, row, element); // keep the field
+			else
+				puzzleRating = removedRating;
+		}
+		return puzzleRating;
+	}
+
+	/**
+	 * Creates MINIMAL_ATTEMPTS minimal sodokus out of the solution, each with another order of the fields,
+	 * like carveUniqueSodoku with all fields tried.
+	 * The solver and its arrays are reused by all checks,
+	 * and every check only searches for a solution differing from the known one in the removed field.
+	 * @param random used to choose the orders of the fields
+	 * @return the grid with the fewest remaining elements
+	 */
+	private Grid minimizeSodoku(final SplittableRandom random) {
+		final DancingLinks solver = new DancingLinks();
+		final Grid puzzle = new Grid();
+		final Grid best = new Grid(solvedSodoku);
+		final int[] order = new int[Grid.FIELD_COUNT];
+		for (int attempt = 0; attempt < MINIMAL_ATTEMPTS; attempt++) {
+			puzzle.copyFrom(solvedSodoku);
+			shuffleFields(order, random);
+			for (int i = 0; i < Grid.FIELD_COUNT; i++) {
+				final int line = order[i] / SodokuGenerator.LINE_LENGTH;
+				final int row = order[i] % SodokuGenerator.LINE_LENGTH;
+				final byte element = puzzle.get(line, row);
+				puzzle.remove(line, row);
+				if (solver.hasOtherSolution(puzzle, line, row, element))
+					puzzle.set(line, row, element); // keep the field
+			}
+			if (puzzle.getFilledCount() < best.getFilledCount())
+				best.copyFrom(puzzle);
+		}
+		return best;
+	}
+
+	/**
+	 * Creates the fields of the sodoku, containing the elements of the passed grid.
+	 * @param puzzle the grid containing the given elements
+	 */
+	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops") // method exists to initialize these objects
+	private void createOpenSodoku(final Grid puzzle) {
+		givenSodoku.copyFrom(puzzle);
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				openSodoku[i][j] = new SodokuField(Grid.toString(puzzle.get(i, j)));
+				openSodoku[i][j].attach(this, i, j);
+				addElement(i, j, puzzle.get(i, j));
+			}
 	}
 
 	/**
 	 * Tests if the sodoku is complete and correct.
+	 * Only reads the counts updated on every change, so it's constant time.
 	 * @return true, if the sodoku is correct
 	 */
 	public boolean isSolved() {
-		final String[][] contentBuilder = new String[SodokuGenerator.LINE_COUNT][SodokuGenerator.LINE_LENGTH];
+		return filledCount == Grid.FIELD_COUNT && conflictCount == 0;
+	}
+
+	/**
+	 * Checks if the element of a field is contained
+	 * in its line, row or square a second time.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @return true, if the field is in conflict with another field
+	 */
+	public boolean isConflicting(final int line, final int row) {
+		final int element = Grid.toElement(openSodoku[line][row].getValue());
+		if (element == Grid.EMPTY)
+			return false;
+		return lineCounts[line][element - 1] > 1 || rowCounts[row][element - 1] > 1
+				|| squareCounts[Grid.getSquare(line, row)][element - 1] > 1;
+	}
+
+	/**
+	 * Updates the counts, after the value of a field changed.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param oldValue the value before the change
+	 * @param newValue the value after the change
+	 */
+	private void valueChanged(final int line, final int row, final String oldValue, final String newValue) {
+		removeElement(line, row, Grid.toElement(oldValue));
+		addElement(line, row, Grid.toElement(newValue));
+		if (hintEngine != null && newValue != null)
+			hintEngine.place(line, row, Grid.toElement(newValue));
+	}
+
+	/**
+	 * Counts an element added to a field.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element, EMPTY is ignored
+	 */
+	private void addElement(final int line, final int row, final int element) {
+		if (element == Grid.EMPTY)
+			return;
+		final int square = Grid.getSquare(line, row);
+		filledCount++;
+		if (lineCounts[line][element - 1]++ > 0)
+			conflictCount++;
+		if (rowCounts[row][element - 1]++ > 0)
+			conflictCount++;
+		if (squareCounts[square][element - 1]++ > 0)
+			conflictCount++;
+	}
+
+	/**
+	 * Stops counting an element removed from a field.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @param element the element, EMPTY is ignored
+	 */
+	private void removeElement(final int line, final int row, final int element) {
+		if (element == Grid.EMPTY)
+			return;
+		final int square = Grid.getSquare(line, row);
+		filledCount--;
+		if (--lineCounts[line][element - 1] > 0)
+			conflictCount--;
+		if (--rowCounts[row][element - 1] > 0)
+			conflictCount--;
+		if (--squareCounts[square][element - 1] > 0)
+			conflictCount--;
+	}
+
+	/**
+	 * Returns the difficulty rating of the given elements.
+	 * The rating is created on the first call.
+	 * @return the rating of the sodoku
+	 */
+	public DifficultyRater.Rating getRating() {
+		if (rating == null)
+			rating = new DifficultyRater().rate(givenSodoku);
+		return rating;
+	}
+
+	/**
+	 * Returns the next field, which can be filled by logic, and the technique needed for it.
+	 * Wrong values of the player are ignored.
+	 * If the player cleared all other fields, which aren't correct yet, one of them is revealed.
+	 * @return the hint, null if the sodoku is solved
+	 */
+	public HintEngine.Hint getHint() {
+		if (hintEngine == null) {
+			final Grid known = new Grid(givenSodoku);
+			for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+				for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+					if (known.get(i, j) == Grid.EMPTY && isCorrect(i, j))
+						known.set(i, j, solvedSodoku.get(i, j));
+			hintEngine = new HintEngine(known, solvedSodoku);
+		}
+		final HintEngine.Hint hint = hintEngine.nextHint();
+		if (hint != null)
+			return hint;
+
+		// all fields are known, but the player cleared or changed some of them
 		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
 			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
-				if (openSodoku[i][j].getValue() == null)
-					return false; // not all fields filled
-				else
-					contentBuilder[i][j] = openSodoku[i][j].getValue();
-		setContent(contentBuilder);
-		return testLines() && test();
+				if (!isCorrect(i, j))
+					return new HintEngine.Hint(i, j, solvedSodoku.get(i, j), null);
+		return null;
+	}
+
+	/**
+	 * Checks if the value of a field matches the solution.
+	 * @param line the line of the field
+	 * @param row the row of the field
+	 * @return true, if the field is filled correctly
+	 */
+	private boolean isCorrect(final int line, final int row) {
+		return Grid.toElement(openSodoku[line][row].getValue()) == solvedSodoku.get(line, row);
+	}
+
+	/**
+	 * Creates a copy of the grid, containing the solution.
+	 * @return the copy of the grid
+	 */
+	public Grid getSolutionGrid() {
+		return new Grid(solvedSodoku);
+	}
+
+	/**
+	 * Creates a copy of the grid, containing the given elements.
+	 * @return the copy of the grid
+	 */
+	public Grid getGivenGrid() {
+		return new Grid(givenSodoku);
+	}
+
+	/**
+	 * Creates a text representation of the current values,
+	 * including the difficulty rating in the headline.
+	 * @param number number to include in headline for numbering
+	 * @return a sting representation of the sodoku
+	 */
+	@Override
+	public String getStringRepresentation(final int number) {
+		final StringBuilder sBuilder = new StringBuilder();
+		sBuilder.append("Sodoku number ").append(number).append(" (").append(getRating()).append("):\n");
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				if (j > 0)
+					sBuilder.append(", ");
+				final String value = openSodoku[i][j].getValue();
+				sBuilder.append(value == null ? EMPTY_FIELD : value);
+			}
+			sBuilder.append('\n');
+		}
+		return sBuilder.append('\n').toString();
 	}
 
 	/**
@@ -89,7 +535,7 @@ public class SolvableSodoku extends Sodoku {
 	 * @return the value of the specified field
 	 */
 	public String getSolution(final int line, final int row) {
-		return solvedSodoku[line][row];
+		return Grid.toString(solvedSodoku.get(line, row));
 	}
 
 	/**
@@ -129,6 +575,18 @@ public class SolvableSodoku extends Sodoku {
 		 * The value of the field.
 		 */
 		private String value;
+		/**
+		 * The sodoku containing the field, notified about changes.
+		 */
+		private SolvableSodoku owner;
+		/**
+		 * The line of the field in the owner.
+		 */
+		private int line;
+		/**
+		 * The row of the field in the owner.
+		 */
+		private int row;
 
 		// Constructors
 
@@ -141,6 +599,20 @@ public class SolvableSodoku extends Sodoku {
 			value = fValue;
 		}
 
+		// Methods
+
+		/**
+		 * Connects the field to the sodoku containing it.
+		 * @param sodoku the sodoku containing the field
+		 * @param fLine the line of the field
+		 * @param fRow the row of the field
+		 */
+		private void attach(final SolvableSodoku sodoku, final int fLine, final int fRow) {
+			owner = sodoku;
+			line = fLine;
+			row = fRow;
+		}
+
 		// Getter / Setter
 
 		/**
@@ -157,8 +629,12 @@ public class SolvableSodoku extends Sodoku {
 		 * @return true, if the value could be changed
 		 */
 		public boolean trySetValue(final String newValue) {
-			if (changeable)
+			if (changeable) {
+				final String oldValue = value;
 				value = newValue;
+				if (owner != null)
+					owner.valueChanged(line, row, oldValue, newValue);
+			}
 			return changeable;
 		}
 	}
@@ -1,6 +1,7 @@
 package de.nicolai.sodoku_generator;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
@@ -60,7 +61,7 @@ public class StartFrame {
 	 */
 	private JFrame createStartFrame() {
 		final int width = ROW_WIDTH + ROW_PADDING * 2 + SodokuFrame.ADD_WIDTH;
-		final int height = ROW_HEIGHT * 4 + ROW_PADDING * 6 + SodokuFrame.ADD_HEIGHT;
+		final int height = ROW_HEIGHT * 5 + ROW_PADDING * 7 + SodokuFrame.ADD_HEIGHT;
 		final JFrame frame = new JFrame("Sodoku Settings");
 		frame.add(createPanel(width, height));
 		frame.setResizable(false);
@@ -79,6 +80,8 @@ public class StartFrame {
 		final JPanel panel = new JPanel(null);
 		final JTextField info = new JTextField("Probability of a sodoku field to be empty:");
 		final JSlider slider = new JSlider(SwingConstants.HORIZONTAL, 0, 100, 50);
+		final JCheckBox unique = new JCheckBox("Unique solution", true);
+		final JCheckBox minimal = new JCheckBox("Minimal (ignores the probability)", false);
 		final JButton start = new JButton("Start");
 		final int buttonWidth = ROW_WIDTH / 4;
 		final int lineCount = 3;
@@ -93,10 +96,16 @@ public class StartFrame {
 		start.setBounds(ROW_PADDING + (int) (buttonWidth * BUTTON_POS_REF),
 				ROW_PADDING + (ROW_PADDING + ROW_HEIGHT) * lineCount,
 				buttonWidth, ROW_HEIGHT);
-		start.addActionListener(e -> start((double) slider.getValue()));
+		unique.setBounds(ROW_PADDING, ROW_PADDING + (ROW_PADDING + ROW_HEIGHT) * lineCount,
+				buttonWidth * 2, ROW_HEIGHT);
+		minimal.setBounds(ROW_PADDING, ROW_PADDING + (ROW_PADDING + ROW_HEIGHT) * (lineCount + 1),
+				buttonWidth * 3, ROW_HEIGHT);
+		start.addActionListener(e -> start((double) slider.getValue(), unique.isSelected(), minimal.isSelected()));
 		panel.setBounds(0, 0, width, height);
 		panel.add(info);
 		panel.add(slider);
+		panel.add(unique);
+		panel.add(minimal);
 		panel.add(start);
 		return panel;
 	}
@@ -111,9 +120,13 @@ public class StartFrame {
 	/**
 	 * Called to start to solve a sodoku.
 	 * @param emptyProbability the probability of a sodoku field to be empty
+	 * @param uniqueSolution true, if the sodoku should only have one solution
+	 * @param minimal true, if no given element should be removable without losing the unique solution
 	 */
-	private void start(final double emptyProbability) {
-		SodokuFrame.displaySodoku(S_GENERATOR.getSodoku(), emptyProbability).onExitBtnClick(this::showFrame);
+	private void start(final double emptyProbability, final boolean uniqueSolution, final boolean minimal) {
+		final SodokuFrame frame = minimal ? SodokuFrame.displayMinimalSodoku(S_GENERATOR.getSodoku())
+				: SodokuFrame.displaySodoku(S_GENERATOR.getSodoku(), emptyProbability, uniqueSolution);
+		frame.onExitBtnClick(this::showFrame);
 		hideFrame();
 	}
 
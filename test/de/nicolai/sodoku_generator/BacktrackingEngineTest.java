@@ -0,0 +1,88 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that BacktrackingEngine fills valid sodokus of every supported size.
+ * @author Nicolai
+ *
+ */
+class BacktrackingEngineTest {
+
+	/**
+	 * Count of sodokus generated per test.
+	 */
+	private static final int COUNT = 20;
+	/**
+	 * Count of grids generated per size.
+	 */
+	private static final int SIZED_COUNT = 3;
+
+	/**
+	 * Every generated sodoku is complete and follows the rules, and they differ from each other.
+	 */
+	@Test
+	void generatesValidSodokus() {
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final SplittableRandom random = new SplittableRandom(19);
+		final Set<String> sodokus = new HashSet<>();
+		for (int i = 0; i < COUNT; i++) {
+			final Sodoku sodoku = engine.generate(random);
+			TestGrids.assertValid(sodoku);
+			sodokus.add(sodoku.toString());
+		}
+		assertEquals(COUNT, sodokus.size());
+	}
+
+	/**
+	 * Every supported size gives complete grids following the rules.
+	 */
+	@Test
+	void generatesValidGridsOfEverySize() {
+		final SplittableRandom random = new SplittableRandom(17);
+		for (int size = Grid.MIN_SQUARE_SIZE; size <= Grid.MAX_SQUARE_SIZE; size++) {
+			final BacktrackingEngine engine = new BacktrackingEngine(size);
+			for (int i = 0; i < SIZED_COUNT; i++) {
+				final Grid grid = engine.generateGrid(random);
+				assertEquals(size, grid.getSquareSize());
+				assertTrue(grid.isFull());
+				assertTrue(grid.isValid());
+			}
+		}
+	}
+
+	/**
+	 * A grid with an element twice in a square isn't valid.
+	 */
+	@Test
+	void findsBrokenRules() {
+		final Grid grid = new BacktrackingEngine(Grid.MIN_SQUARE_SIZE).generateGrid(new SplittableRandom(19));
+		final int element = grid.get(0, 0);
+		grid.remove(0, 0);
+		grid.set(0, 0, grid.get(1, 1));
+		assertFalse(grid.isValid());
+		grid.remove(0, 0);
+		grid.set(0, 0, element);
+		assertTrue(grid.isValid());
+	}
+
+	/**
+	 * Sizes out of range and sodokus of other sizes than 9x9 are refused.
+	 */
+	@Test
+	void refusesUnsupportedSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new BacktrackingEngine(Grid.MAX_SQUARE_SIZE + 1));
+		assertThrows(IllegalArgumentException.class, () -> new BacktrackingEngine(Grid.MIN_SQUARE_SIZE - 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new BacktrackingEngine(Grid.MIN_SQUARE_SIZE).generate(new SplittableRandom(1)));
+	}
+}
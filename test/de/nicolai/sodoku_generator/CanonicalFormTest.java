@@ -0,0 +1,93 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that CanonicalForm maps all transforms of GridTransformer to the same sodoku and key.
+ * @author Nicolai
+ *
+ */
+class CanonicalFormTest {
+
+	/**
+	 * Count of random transforms checked per test.
+	 */
+	private static final int TRANSFORMS = 50;
+
+	/**
+	 * Creates the transforms.
+	 */
+	private final GridTransformer transformer = new GridTransformer();
+	/**
+	 * The form of the original sodoku.
+	 */
+	private final CanonicalForm expected = new CanonicalForm();
+	/**
+	 * The form of a transformed sodoku.
+	 */
+	private final CanonicalForm actual = new CanonicalForm();
+
+	/**
+	 * Every transform of a complete sodoku has the same smallest sodoku and key.
+	 */
+	@Test
+	void isInvariantUnderTransforms() {
+		final Grid sodoku = TestGrids.parse(TestGrids.SOLUTION);
+		expected.canonicalize(sodoku);
+		final Grid canonical = new Grid();
+		expected.getCanonical(canonical);
+		assertTrue(canonical.isFull());
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			assertTrue(canonical.testLine(i) && canonical.testRow(i) && canonical.testSquare(i));
+
+		final SplittableRandom random = new SplittableRandom(1);
+		final Grid transformed = new Grid();
+		final Grid actualCanonical = new Grid();
+		for (int i = 0; i < TRANSFORMS; i++) {
+			transformer.transform(sodoku, random, transformed);
+			actual.canonicalize(transformed);
+			actual.getCanonical(actualCanonical);
+			assertEquals(TestGrids.digits(canonical), TestGrids.digits(actualCanonical));
+			assertEquals(expected.getKeyHigh(), actual.getKeyHigh());
+			assertEquals(expected.getKeyLow(), actual.getKeyLow());
+		}
+	}
+
+	/**
+	 * The same transform of a puzzle and its solution keeps the key of the puzzle.
+	 */
+	@Test
+	void isInvariantUnderTransformsOfPuzzles() {
+		expected.canonicalize(TestGrids.parse(TestGrids.SOLUTION), TestGrids.parse(TestGrids.PUZZLE));
+
+		final Grid solution = new Grid();
+		final Grid puzzle = new Grid();
+		for (int i = 0; i < TRANSFORMS; i++) {
+			transformer.transform(TestGrids.parse(TestGrids.SOLUTION), new SplittableRandom(i), solution);
+			transformer.transform(TestGrids.parse(TestGrids.PUZZLE), new SplittableRandom(i), puzzle);
+			actual.canonicalize(solution, puzzle);
+			assertEquals(expected.getKeyHigh(), actual.getKeyHigh());
+			assertEquals(expected.getKeyLow(), actual.getKeyLow());
+		}
+	}
+
+	/**
+	 * Sodokus, which aren't equal up to symmetry, get different keys.
+	 */
+	@Test
+	void separatesDifferentSodokus() {
+		expected.canonicalize(TestGrids.parse(TestGrids.SOLUTION));
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final SplittableRandom random = new SplittableRandom(2);
+		for (int i = 0; i < TRANSFORMS; i++) {
+			actual.canonicalize(engine.generate(random).getGridCopy());
+			assertFalse(expected.getKeyHigh() == actual.getKeyHigh() && expected.getKeyLow() == actual.getKeyLow());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the solution counts and solutions of DancingLinks on known grids.
+ * @author Nicolai
+ *
+ */
+class DancingLinksTest {
+
+	/**
+	 * The solver under test.
+	 */
+	private final DancingLinks solver = new DancingLinks();
+
+	/**
+	 * A puzzle with a unique solution is solved to its known solution.
+	 */
+	@Test
+	void solvesUniquePuzzle() {
+		final Grid solution = new Grid();
+		assertEquals(1, solver.countSolutions(TestGrids.parse(TestGrids.PUZZLE), 2));
+		assertTrue(solver.solve(TestGrids.parse(TestGrids.PUZZLE), solution));
+		assertEquals(TestGrids.SOLUTION, TestGrids.digits(solution));
+		assertTrue(solver.hasUniqueSolution(TestGrids.parse(TestGrids.PUZZLE)));
+	}
+
+	/**
+	 * A complete grid is its only solution.
+	 */
+	@Test
+	void countsCompleteGrid() {
+		assertEquals(1, solver.countSolutions(TestGrids.parse(TestGrids.SOLUTION), 2));
+	}
+
+	/**
+	 * A removed rectangle of two elements leaves exactly two solutions.
+	 */
+	@Test
+	void countsTwoSolutions() {
+		final Grid grid = TestGrids.parse(TestGrids.TWO_SOLUTIONS);
+		assertEquals(2, solver.countSolutions(grid, 10));
+		assertFalse(solver.hasUniqueSolution(grid));
+
+		final Set<String> solutions = new HashSet<>();
+		assertEquals(2, solver.enumerate(grid, solution -> solutions.add(TestGrids.digits(solution))));
+		assertTrue(solutions.contains(TestGrids.SOLUTION));
+		assertEquals(2, solutions.size());
+	}
+
+	/**
+	 * The search stops at the passed count of solutions.
+	 */
+	@Test
+	void stopsAtMaxSolutions() {
+		assertEquals(5, solver.countSolutions(TestGrids.parse(TestGrids.EMPTY), 5));
+	}
+
+	/**
+	 * Given elements breaking the rules leave no solution.
+	 */
+	@Test
+	void countsNoSolutionForBrokenRules() {
+		final Grid grid = TestGrids.parse(TestGrids.PUZZLE);
+		grid.set(0, 2, 5); // second 5 in the first line
+		assertEquals(0, solver.countSolutions(grid, 2));
+		assertFalse(solver.solve(grid, new Grid()));
+	}
+
+	/**
+	 * Only the other solution is found, if the element of the known one is excluded.
+	 */
+	@Test
+	void findsOtherSolution() {
+		final Grid grid = TestGrids.parse(TestGrids.TWO_SOLUTIONS);
+		assertTrue(solver.hasOtherSolution(grid, 3, 5, 1));
+		final Grid unique = TestGrids.parse(TestGrids.PUZZLE);
+		assertFalse(solver.hasOtherSolution(unique, 0, 2, 4));
+	}
+}
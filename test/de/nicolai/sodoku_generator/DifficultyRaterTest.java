@@ -0,0 +1,119 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the ratings of DifficultyRater and the puzzles aiming for a difficulty.
+ * @author Nicolai
+ *
+ */
+class DifficultyRaterTest {
+
+	/**
+	 * Count of rated puzzles created.
+	 */
+	private static final int PUZZLES = 10;
+	/**
+	 * Probability of a field to be empty, in percent.
+	 */
+	private static final double EMPTY_PROBABILITY = 60;
+	/**
+	 * Count of rated puzzles created per difficulty.
+	 */
+	private static final int RATED_PUZZLES = 5;
+
+	/**
+	 * The rater under test.
+	 */
+	private final DifficultyRater rater = new DifficultyRater();
+
+	/**
+	 * A puzzle solvable with singles is easy and solved to its solution.
+	 */
+	@Test
+	void ratesSinglesAsEasy() {
+		final DifficultyRater.Rating rating = rater.rate(TestGrids.parse(TestGrids.PUZZLE));
+		assertTrue(rating.isSolved());
+		assertEquals(Difficulty.EASY, rating.getDifficulty());
+		assertTrue(rating.getScore() > 0);
+		assertSolvedTo(TestGrids.SOLUTION);
+	}
+
+	/**
+	 * A complete sodoku needs no technique.
+	 */
+	@Test
+	void ratesCompleteSodoku() {
+		final DifficultyRater.Rating rating = rater.rate(TestGrids.parse(TestGrids.SOLUTION));
+		assertTrue(rating.isSolved());
+		assertNull(rating.getHardestTechnique());
+		assertEquals(0, rating.getScore());
+		assertEquals(Difficulty.EASY, rating.getDifficulty());
+	}
+
+	/**
+	 * A grid the techniques can't solve is expert.
+	 */
+	@Test
+	void ratesUnsolvedAsExpert() {
+		final DifficultyRater.Rating rating = rater.rate(TestGrids.parse(TestGrids.EMPTY));
+		assertFalse(rating.isSolved());
+		assertEquals(Difficulty.EXPERT, rating.getDifficulty());
+	}
+
+	/**
+	 * Puzzles rate their given elements, and ratings of solved puzzles
+	 * have the tier of their hardest technique.
+	 */
+	@Test
+	void ratesCarvedPuzzles() {
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final SplittableRandom random = new SplittableRandom(5);
+		for (int i = 0; i < PUZZLES; i++) {
+			final SolvableSodoku puzzle = new SolvableSodoku(engine.generate(random), EMPTY_PROBABILITY, true,
+					random);
+			final DifficultyRater.Rating rating = rater.rate(puzzle.getGivenGrid());
+			assertEquals(rating.getDifficulty(), puzzle.getRating().getDifficulty());
+			assertEquals(rating.getScore(), puzzle.getRating().getScore());
+			if (rating.isSolved() && rating.getHardestTechnique() != null)
+				assertEquals(rating.getHardestTechnique().getDifficulty(), rating.getDifficulty());
+		}
+	}
+
+	/**
+	 * Rated puzzles have a unique solution, are at most as hard as their target
+	 * and are only solved to their solution.
+	 */
+	@Test
+	void createsPuzzlesUpToTarget() {
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final DancingLinks solver = new DancingLinks();
+		final SplittableRandom random = new SplittableRandom(5);
+		for (final Difficulty target:Difficulty.values())
+			for (int i = 0; i < RATED_PUZZLES; i++) {
+				final SolvableSodoku puzzle = SolvableSodoku.createRated(engine.generate(random), target, random);
+				assertTrue(solver.hasUniqueSolution(puzzle.getGivenGrid()));
+				final DifficultyRater.Rating rating = rater.rate(puzzle.getGivenGrid());
+				assertEquals(puzzle.getRating().getDifficulty(), rating.getDifficulty());
+				assertTrue(rating.getDifficulty().compareTo(target) <= 0);
+				if (rating.isSolved())
+					assertSolvedTo(TestGrids.digits(puzzle.getSolutionGrid()));
+			}
+	}
+
+	/**
+	 * Checks that the last rated sodoku were filled with the passed solution.
+	 * @param solution the expected elements line by line
+	 */
+	private void assertSolvedTo(final String solution) {
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			assertEquals(solution.charAt(i) - '0', rater.getElement(i));
+	}
+}
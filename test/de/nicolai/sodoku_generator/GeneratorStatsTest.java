@@ -0,0 +1,49 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the counters of GeneratorStats.
+ * @author Nicolai
+ *
+ */
+class GeneratorStatsTest {
+
+	/**
+	 * The counters add up the passed values, and a reset sets all of them to 0.
+	 */
+	@Test
+	void countsAndResets() {
+		final GeneratorStats stats = GeneratorStats.get();
+		stats.reset();
+		stats.addLineAttempts(0, 5);
+		stats.addLineAttempts(8, 2);
+		stats.addLineAttempts(8, 3);
+		stats.addReset();
+		stats.addBandBacktrack();
+		stats.addBandBacktrack();
+		stats.addBandBacktrack();
+		stats.addLastLineFailure();
+		stats.addLastLineFailure();
+		stats.recordGrid(1_000);
+		stats.recordGrid(3_000);
+		assertArrayEquals(new long[] {5, 0, 0, 0, 0, 0, 0, 0, 5}, stats.getLineAttempts());
+		assertEquals(1, stats.getResets());
+		assertEquals(3, stats.getBandBacktracks());
+		assertEquals(2, stats.getLastLineFailures());
+		assertEquals(2, stats.getGridCount());
+		assertEquals(2_000, stats.getMeanNanos());
+		assertEquals(3_000, stats.getMaxNanos());
+
+		stats.reset();
+		assertArrayEquals(new long[SodokuGenerator.LINE_COUNT], stats.getLineAttempts());
+		assertEquals(0, stats.getResets());
+		assertEquals(0, stats.getBandBacktracks());
+		assertEquals(0, stats.getLastLineFailures());
+		assertEquals(0, stats.getGridCount());
+		assertEquals(0, stats.getMaxNanos());
+	}
+}
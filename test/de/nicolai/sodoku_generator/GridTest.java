@@ -0,0 +1,133 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the fields, bitmasks and counts of Grid.
+ * @author Nicolai
+ *
+ */
+class GridTest {
+
+	/**
+	 * Placing an element marks it as used in its line, row and square only.
+	 */
+	@Test
+	void placeUpdatesMasksAndCandidates() {
+		final Grid grid = new Grid();
+		assertEquals(Grid.ALL_ELEMENTS, grid.getCandidates(4, 4));
+		assertTrue(grid.place(4, 4, 5));
+		assertEquals(5, grid.get(4, 4));
+		assertEquals(1, grid.getFilledCount());
+		assertEquals(1 << 4, grid.getLineMask(4));
+		assertEquals(1 << 4, grid.getRowMask(4));
+		assertEquals(1 << 4, grid.getSquareMask(Grid.getSquare(4, 4)));
+		assertEquals(Grid.ALL_ELEMENTS & ~(1 << 4), grid.getCandidates(4, 0));
+		assertEquals(Grid.ALL_ELEMENTS & ~(1 << 4), grid.getCandidates(0, 4));
+		assertEquals(Grid.ALL_ELEMENTS & ~(1 << 4), grid.getCandidates(3, 5));
+		assertEquals(Grid.ALL_ELEMENTS, grid.getCandidates(0, 0));
+	}
+
+	/**
+	 * Elements breaking the rules, elements out of range and filled fields are refused, without changes.
+	 */
+	@Test
+	void placeRefusesConflicts() {
+		final Grid grid = new Grid();
+		assertTrue(grid.place(0, 0, 1));
+		assertFalse(grid.place(0, 8, 1)); // same line
+		assertFalse(grid.place(8, 0, 1)); // same row
+		assertFalse(grid.place(2, 2, 1)); // same square
+		assertFalse(grid.place(0, 0, 2)); // filled field
+		assertFalse(grid.place(1, 1, 0));
+		assertFalse(grid.place(1, 1, SodokuGenerator.LINE_LENGTH + 1));
+		assertEquals(1, grid.getFilledCount());
+		assertEquals(1, grid.getLineMask(0));
+		assertTrue(grid.place(3, 3, 1));
+	}
+
+	/**
+	 * Overwriting an element by removing and setting it leaves the masks and count of the new element only.
+	 */
+	@Test
+	void removeRestoresMasks() {
+		final Grid grid = new Grid();
+		grid.set(1, 2, 7);
+		grid.remove(1, 2);
+		assertEquals(Grid.EMPTY, grid.get(1, 2));
+		assertEquals(0, grid.getFilledCount());
+		assertEquals(0, grid.getLineMask(1));
+		assertEquals(0, grid.getRowMask(2));
+		assertEquals(0, grid.getSquareMask(0));
+
+		grid.set(1, 2, 3);
+		assertEquals(1 << 2, grid.getLineMask(1));
+		assertEquals(1 << 2, grid.getRowMask(2));
+		assertEquals(1 << 2, grid.getSquareMask(0));
+		assertEquals(1, grid.getFilledCount());
+
+		grid.remove(1, 3); // empty field
+		assertEquals(1, grid.getFilledCount());
+		grid.set(1, 3, Grid.EMPTY);
+		assertEquals(1, grid.getFilledCount());
+	}
+
+	/**
+	 * Elements set against the rules are found by the test methods.
+	 */
+	@Test
+	void testMethodsFindConflicts() {
+		final Grid grid = TestGrids.parse(TestGrids.SOLUTION);
+		assertTrue(grid.isFull());
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++)
+			assertTrue(grid.testLine(i) && grid.testRow(i) && grid.testSquare(i));
+
+		grid.remove(0, 0);
+		grid.set(0, 0, 4); // 4 is in line 0, row 2 and square 0 too
+		assertFalse(grid.testLine(0));
+		assertFalse(grid.testRow(0));
+		assertFalse(grid.testSquare(0));
+		assertTrue(grid.testLine(1));
+	}
+
+	/**
+	 * Copies don't share the fields, and a cleared grid is empty.
+	 */
+	@Test
+	void copyAndClear() {
+		final Grid grid = TestGrids.parse(TestGrids.PUZZLE);
+		final Grid copy = new Grid(grid);
+		assertEquals(TestGrids.PUZZLE, TestGrids.digits(copy));
+		assertEquals(grid.getFilledCount(), copy.getFilledCount());
+
+		grid.clear();
+		assertEquals(0, grid.getFilledCount());
+		assertEquals(Grid.ALL_ELEMENTS, grid.getCandidates(0, 0));
+		assertEquals(TestGrids.PUZZLE, TestGrids.digits(copy));
+
+		grid.copyFrom(copy);
+		assertEquals(TestGrids.PUZZLE, TestGrids.digits(grid));
+		assertEquals(copy.getCandidates(0, 2), grid.getCandidates(0, 2));
+	}
+
+	/**
+	 * Squares are numbered line by line, and elements convert from and to strings.
+	 */
+	@Test
+	void convertsSquaresAndElements() {
+		assertEquals(0, Grid.getSquare(2, 2));
+		assertEquals(5, Grid.getSquare(4, 7));
+		assertEquals(6, Grid.getSquare(8, 0));
+		assertEquals(7, Grid.toElement("7"));
+		assertEquals(Grid.EMPTY, Grid.toElement(null));
+		assertEquals(Grid.EMPTY, Grid.toElement("0"));
+		assertEquals(Grid.EMPTY, Grid.toElement("12"));
+		assertEquals("7", Grid.toString(7));
+		assertNull(Grid.toString(Grid.EMPTY));
+	}
+}
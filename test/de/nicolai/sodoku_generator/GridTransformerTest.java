@@ -0,0 +1,83 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that GridTransformer keeps sodokus valid and puzzles unique.
+ * @author Nicolai
+ *
+ */
+class GridTransformerTest {
+
+	/**
+	 * Count of transforms checked per test.
+	 */
+	private static final int TRANSFORMS = 100;
+
+	/**
+	 * The transformer under test.
+	 */
+	private final GridTransformer transformer = new GridTransformer();
+
+	/**
+	 * Transforms of a complete sodoku follow the rules and differ from each other.
+	 */
+	@Test
+	void transformsToValidSodokus() {
+		final Grid solution = TestGrids.parse(TestGrids.SOLUTION);
+		final Grid result = new Grid();
+		final SplittableRandom random = new SplittableRandom(29);
+		final Set<String> transforms = new HashSet<>();
+		for (int i = 0; i < TRANSFORMS; i++) {
+			transformer.transform(solution, random, result);
+			assertTrue(result.isFull());
+			for (int j = 0; j < SodokuGenerator.LINE_COUNT; j++)
+				assertTrue(result.testLine(j) && result.testRow(j) && result.testSquare(j));
+			transforms.add(TestGrids.digits(result));
+		}
+		assertEquals(TRANSFORMS, transforms.size());
+		assertEquals(TestGrids.SOLUTION, TestGrids.digits(solution));
+	}
+
+	/**
+	 * The same transform of a puzzle and its solution keeps the solution unique.
+	 */
+	@Test
+	void transformsPuzzleWithItsSolution() {
+		final DancingLinks solver = new DancingLinks();
+		final Grid puzzle = new Grid();
+		final Grid solution = new Grid();
+		for (int i = 0; i < TRANSFORMS; i++) {
+			transformer.transform(TestGrids.parse(TestGrids.PUZZLE), new SplittableRandom(i), puzzle);
+			transformer.transform(TestGrids.parse(TestGrids.SOLUTION), new SplittableRandom(i), solution);
+			assertEquals(TestGrids.parse(TestGrids.PUZZLE).getFilledCount(), puzzle.getFilledCount());
+			assertTrue(solver.hasUniqueSolution(puzzle));
+			for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+				for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++)
+					if (puzzle.get(line, row) != Grid.EMPTY)
+						assertEquals(solution.get(line, row), puzzle.get(line, row));
+		}
+	}
+
+	/**
+	 * The base sodoku is kept by its number, and transforms of it are valid.
+	 */
+	@Test
+	void keepsBase() {
+		final Sodoku sodoku = new BacktrackingEngine().generate(new SplittableRandom(31));
+		assertFalse(transformer.hasBase(1));
+		transformer.setBase(1, sodoku);
+		assertTrue(transformer.hasBase(1));
+		assertFalse(transformer.hasBase(2));
+		assertEquals(sodoku.toString(), transformer.getBase().toString());
+		TestGrids.assertValid(transformer.transform(new SplittableRandom(37)));
+	}
+}
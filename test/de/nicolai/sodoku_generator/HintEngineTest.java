@@ -0,0 +1,72 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the hints of HintEngine lead to the solution.
+ * @author Nicolai
+ *
+ */
+class HintEngineTest {
+
+	/**
+	 * Following every hint fills all empty fields with the elements of the solution.
+	 */
+	@Test
+	void leadsToSolution() {
+		final Grid puzzle = TestGrids.parse(TestGrids.PUZZLE);
+		final HintEngine engine = new HintEngine(puzzle, TestGrids.parse(TestGrids.SOLUTION));
+		int hints = 0;
+		for (HintEngine.Hint hint = engine.nextHint(); hint != null; hint = engine.nextHint()) {
+			assertEquals(Grid.EMPTY, puzzle.get(hint.getLine(), hint.getRow()));
+			assertEquals(TestGrids.SOLUTION.charAt(hint.getLine() * SodokuGenerator.LINE_LENGTH + hint.getRow()) - '0',
+					hint.getElement());
+			assertNotNull(hint.getTechnique());
+			puzzle.set(hint.getLine(), hint.getRow(), hint.getElement());
+			engine.place(hint.getLine(), hint.getRow(), hint.getElement());
+			hints++;
+		}
+		assertEquals(TestGrids.SOLUTION, TestGrids.digits(puzzle));
+		assertEquals(Grid.FIELD_COUNT - TestGrids.parse(TestGrids.PUZZLE).getFilledCount(), hints);
+	}
+
+	/**
+	 * A hint is repeated until it's placed, and wrong elements of the player are ignored.
+	 */
+	@Test
+	void repeatsHintUntilPlaced() {
+		final HintEngine engine = new HintEngine(TestGrids.parse(TestGrids.PUZZLE),
+				TestGrids.parse(TestGrids.SOLUTION));
+		final HintEngine.Hint hint = engine.nextHint();
+		assertSame(hint, engine.nextHint());
+		engine.place(hint.getLine(), hint.getRow(), hint.getElement() % SodokuGenerator.LINE_LENGTH + 1);
+		assertSame(hint, engine.nextHint());
+	}
+
+	/**
+	 * A field is revealed from the solution, if no technique makes progress.
+	 */
+	@Test
+	void revealsWithoutTechnique() {
+		final HintEngine engine = new HintEngine(TestGrids.parse(TestGrids.TWO_SOLUTIONS),
+				TestGrids.parse(TestGrids.SOLUTION));
+		final HintEngine.Hint hint = engine.nextHint();
+		assertNull(hint.getTechnique());
+		assertEquals(TestGrids.SOLUTION.charAt(hint.getLine() * SodokuGenerator.LINE_LENGTH + hint.getRow()) - '0',
+				hint.getElement());
+	}
+
+	/**
+	 * The JSON of the server contains the field, element and technique of a hint.
+	 */
+	@Test
+	void writesJson() {
+		final String json = PuzzleServer.toJson(new HintEngine.Hint(2, 6, 5, DifficultyRater.Technique.HIDDEN_SINGLE));
+		assertEquals("{\"line\":2,\"row\":6,\"element\":5,\"technique\":\"Hidden single\"}\n", json);
+	}
+}
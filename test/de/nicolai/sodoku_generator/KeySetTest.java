@@ -0,0 +1,56 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that KeySet keeps every added key once.
+ * @author Nicolai
+ *
+ */
+class KeySetTest {
+
+	/**
+	 * Count of keys added, enough to grow the set several times.
+	 */
+	private static final int KEYS = 10_000;
+
+	/**
+	 * Keys are only added the first time, also after the set grew.
+	 */
+	@Test
+	void addsEveryKeyOnce() {
+		final KeySet set = new KeySet();
+		final long[] highs = new long[KEYS];
+		final long[] lows = new long[KEYS];
+		final SplittableRandom random = new SplittableRandom(41);
+		for (int i = 0; i < KEYS; i++) {
+			highs[i] = random.nextLong();
+			lows[i] = random.nextLong();
+			assertTrue(set.add(highs[i], lows[i]));
+		}
+		assertEquals(KEYS, set.size());
+		for (int i = 0; i < KEYS; i++) {
+			assertFalse(set.add(highs[i], lows[i]));
+			assertTrue(set.add(highs[i], ~lows[i])); // differs in one half only
+		}
+		assertEquals(2 * KEYS, set.size());
+	}
+
+	/**
+	 * The key 0, 0, which marks empty slots, is kept too.
+	 */
+	@Test
+	void addsZeroKey() {
+		final KeySet set = new KeySet();
+		assertTrue(set.add(0, 0));
+		assertFalse(set.add(0, 0));
+		assertTrue(set.add(0, 1));
+		assertEquals(2, set.size());
+	}
+}
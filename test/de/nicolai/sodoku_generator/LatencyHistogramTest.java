@@ -0,0 +1,96 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the buckets, percentiles and reset of LatencyHistogram.
+ * @author Nicolai
+ *
+ */
+class LatencyHistogramTest {
+
+	/**
+	 * Count of random values checked.
+	 */
+	private static final int VALUES = 10_000;
+	/**
+	 * Count of sub buckets per power of two, the relative error of a percentile is at most its reciprocal.
+	 */
+	private static final int SUB_BUCKETS = 8;
+
+	/**
+	 * The histogram under test.
+	 */
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * Values below two times the sub buckets get a bucket of their own.
+	 */
+	@Test
+	void keepsSmallValuesExact() {
+		for (long value = 0; value < 2 * SUB_BUCKETS; value++) {
+			histogram.reset();
+			histogram.record(value);
+			histogram.record(Long.MAX_VALUE); // so the percentile isn't bounded by the max
+			assertEquals(value, histogram.getPercentile(50));
+		}
+	}
+
+	/**
+	 * The bucket of every value, up to the largest long, ends at most an eighth above it.
+	 */
+	@Test
+	void boundsValuesByTheirBucket() {
+		final SplittableRandom random = new SplittableRandom(43);
+		for (int i = 0; i < VALUES; i++) {
+			final long value = random.nextLong() >>> 1 + random.nextInt(Long.SIZE - 1);
+			histogram.reset();
+			histogram.record(value);
+			histogram.record(Long.MAX_VALUE);
+			final long bound = histogram.getPercentile(50);
+			assertTrue(bound >= value && bound - value <= value / SUB_BUCKETS, value + " in bucket up to " + bound);
+		}
+		histogram.reset();
+		histogram.record(Long.MAX_VALUE); // the last of the 488 buckets
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+	}
+
+	/**
+	 * The percentiles of 1 to 1000 are within an eighth of the exact ones, and the max is exact.
+	 */
+	@Test
+	void computesPercentiles() {
+		for (long value = 1; value <= 1_000; value++)
+			histogram.record(value);
+		assertEquals(1_000, histogram.getCount());
+		assertEquals(500.5, histogram.getMean());
+		assertEquals(1_000, histogram.getMax());
+		for (final int percent:new int[] {1, 50, 90, 99}) {
+			final long percentile = histogram.getPercentile(percent);
+			assertTrue(percentile >= 10 * percent && percentile <= 10 * percent * 9 / SUB_BUCKETS,
+					percent + "th percentile " + percentile);
+		}
+		assertEquals(1_000, histogram.getPercentile(100));
+	}
+
+	/**
+	 * Negative times are recorded as 0, and a reset empties the histogram.
+	 */
+	@Test
+	void resetsToEmpty() {
+		histogram.record(-5);
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(100));
+		histogram.record(7);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+}
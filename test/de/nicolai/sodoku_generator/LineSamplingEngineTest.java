@@ -0,0 +1,122 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that LineSamplingEngine fills valid sodokus.
+ * @author Nicolai
+ *
+ */
+class LineSamplingEngineTest {
+
+	/**
+	 * Count of sodokus generated per test.
+	 */
+	private static final int COUNT = 10;
+	/**
+	 * Count of lines drawn for every fitting line.
+	 */
+	private static final int DRAWS_PER_LINE = 400;
+	/**
+	 * Lines of TestGrids.SOLUTION kept, the next one is drawn.
+	 */
+	private static final int KEPT_LINES = 6;
+
+	/**
+	 * Every generated sodoku is complete and follows the rules.
+	 */
+	@Test
+	void generatesValidSodokus() {
+		final LineSamplingEngine engine = new LineSamplingEngine();
+		final SplittableRandom random = new SplittableRandom(23);
+		for (int i = 0; i < COUNT; i++)
+			TestGrids.assertValid(engine.generate(random));
+	}
+
+	/**
+	 * Sodokus stay valid when bands are removed after dead ends, and the same random gives the same sodoku.
+	 */
+	@Test
+	void backtracksToValidSodokus() {
+		final GeneratorStats stats = GeneratorStats.get();
+		stats.reset();
+		final LineSamplingEngine engine = new LineSamplingEngine();
+		for (int i = 0; i < COUNT; i++) {
+			final Sodoku sodoku = engine.generate(new SplittableRandom(i));
+			TestGrids.assertValid(sodoku);
+			assertEquals(sodoku.toString(), new LineSamplingEngine().generate(new SplittableRandom(i)).toString());
+		}
+		assertTrue(stats.getBandBacktracks() > 0);
+	}
+
+	/**
+	 * Every fitting line is drawn with about the same probability, and no other line is drawn.
+	 */
+	@Test
+	void samplesFittingLinesUniformly() {
+		final Grid grid = new Grid();
+		for (int i = 0; i < KEPT_LINES * SodokuGenerator.LINE_LENGTH; i++)
+			grid.set(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH,
+					TestGrids.SOLUTION.charAt(i) - '0');
+		final Map<String, Integer> draws = new HashMap<>();
+		addFittingLines(grid, 0, new StringBuilder(), draws);
+		assertTrue(draws.size() > 1);
+
+		final LineSamplingEngine engine = new LineSamplingEngine();
+		final SplittableRandom random = new SplittableRandom(47);
+		final String[] line = new String[SodokuGenerator.LINE_LENGTH];
+		for (int i = 0; i < DRAWS_PER_LINE * draws.size(); i++) {
+			assertTrue(engine.sampleLine(grid, KEPT_LINES, random, line));
+			final String joined = String.join("", line);
+			assertTrue(draws.containsKey(joined), joined);
+			draws.merge(joined, 1, Integer::sum);
+		}
+		for (final int count:draws.values())
+			assertTrue(count > DRAWS_PER_LINE * 3 / 4 && count < DRAWS_PER_LINE * 5 / 4, draws.toString());
+	}
+
+	/**
+	 * No line is drawn, if a field of the line has no allowed element.
+	 */
+	@Test
+	void findsDeadEnd() {
+		final Grid grid = new Grid();
+		for (int j = 0; j < SodokuGenerator.SQUARE_STEPS; j++) {
+			grid.set(1, j, j + 1);
+			grid.set(2, j, j + 4);
+			grid.set(j + 3, 0, j + 7);
+		}
+		assertFalse(new LineSamplingEngine().sampleLine(grid, 0, new SplittableRandom(53),
+				new String[SodokuGenerator.LINE_LENGTH]));
+	}
+
+	/**
+	 * Adds every line fitting into line KEPT_LINES of the grid to lines, with a count of 0.
+	 * @param grid the grid with the lines before
+	 * @param row the next row to fill
+	 * @param prefix the elements of the rows before
+	 * @param lines the map to add the lines to
+	 */
+	private static void addFittingLines(final Grid grid, final int row, final StringBuilder prefix,
+			final Map<String, Integer> lines) {
+		if (row == SodokuGenerator.LINE_LENGTH) {
+			lines.put(prefix.toString(), 0);
+			return;
+		}
+		for (int element = 1; element <= SodokuGenerator.LINE_LENGTH; element++)
+			if (prefix.indexOf(String.valueOf(element)) < 0 && grid.canPlace(KEPT_LINES, row, element)) {
+				prefix.append(element);
+				addFittingLines(grid, row + 1, prefix, lines);
+				prefix.setLength(row);
+			}
+	}
+}
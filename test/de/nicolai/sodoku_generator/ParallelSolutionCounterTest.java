@@ -0,0 +1,104 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that ParallelSolutionCounter counts the same solutions as a single DancingLinks solver.
+ * @author Nicolai
+ *
+ */
+class ParallelSolutionCounterTest {
+
+	/**
+	 * Count of threads of the pool.
+	 */
+	private static final int THREADS = 4;
+	/**
+	 * Limit of the counts of grids with many solutions.
+	 */
+	private static final int LIMIT = 10_000;
+	/**
+	 * Count of minimal puzzles checked.
+	 */
+	private static final int PUZZLES = 10;
+
+	/**
+	 * Runs the tasks of the counter.
+	 */
+	private final ForkJoinPool pool = new ForkJoinPool(THREADS);
+	/**
+	 * The counter under test.
+	 */
+	private final ParallelSolutionCounter counter = new ParallelSolutionCounter(pool);
+	/**
+	 * Counts the expected solutions.
+	 */
+	private final DancingLinks solver = new DancingLinks();
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	@AfterEach
+	void shutdownPool() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * The count of an empty grid stops at the limit.
+	 */
+	@Test
+	void stopsAtLimit() {
+		assertEquals(LIMIT, counter.countSolutions(TestGrids.parse(TestGrids.EMPTY), LIMIT));
+	}
+
+	/**
+	 * Grids with more than SPARSE_CLUES given elements are counted like by a single solver.
+	 */
+	@Test
+	void countsDenseGrids() {
+		assertTrue(counter.hasUniqueSolution(TestGrids.parse(TestGrids.PUZZLE)));
+		assertEquals(2, counter.countSolutions(TestGrids.parse(TestGrids.TWO_SOLUTIONS), LIMIT));
+	}
+
+	/**
+	 * Sparse grids, split into tasks, get the same counts as by a single solver:
+	 * minimal puzzles have one solution, and some hundred without one of their given elements.
+	 */
+	@Test
+	void countsSparseGrids() {
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final SplittableRandom random = new SplittableRandom(7);
+		for (int i = 0; i < PUZZLES; i++) {
+			final Grid sparse = SolvableSodoku.createMinimal(engine.generate(random), random).getGivenGrid();
+			assertTrue(counter.hasUniqueSolution(sparse));
+
+			int last = Grid.FIELD_COUNT - 1;
+			while (sparse.get(last / SodokuGenerator.LINE_LENGTH, last % SodokuGenerator.LINE_LENGTH) == Grid.EMPTY)
+				last--;
+			sparse.remove(last / SodokuGenerator.LINE_LENGTH, last % SodokuGenerator.LINE_LENGTH);
+			final int expected = solver.countSolutions(sparse, LIMIT);
+			assertTrue(expected > 1 && expected < LIMIT);
+			assertEquals(expected, counter.countSolutions(sparse, LIMIT));
+			assertFalse(counter.hasUniqueSolution(sparse));
+		}
+	}
+
+	/**
+	 * Given elements breaking the rules leave no solution.
+	 */
+	@Test
+	void countsNoSolutionForBrokenRules() {
+		final Grid grid = new Grid();
+		grid.set(0, 0, 1);
+		grid.set(0, 1, 1);
+		assertEquals(0, counter.countSolutions(grid, LIMIT));
+	}
+}
@@ -0,0 +1,84 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that sodokus written by PuzzleFileWriter are read back unchanged by PuzzleFileReader.
+ * @author Nicolai
+ *
+ */
+class PuzzleFileTest {
+
+	/**
+	 * Count of sodokus written per test.
+	 */
+	private static final int COUNT = 20;
+
+	/**
+	 * Directory for the written files.
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Rated puzzles and complete sodokus keep their solution, given fields and difficulty.
+	 * @throws IOException if the file can't be written or read
+	 */
+	@Test
+	void readsWrittenSodokus() throws IOException {
+		final BacktrackingEngine engine = new BacktrackingEngine();
+		final SplittableRandom random = new SplittableRandom(3);
+		final List<Sodoku> sodokus = new ArrayList<>(COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			final Sodoku sodoku = engine.generate(random);
+			sodokus.add(i % 2 == 0 ? new SolvableSodoku(sodoku, 50, true, random) : sodoku);
+		}
+
+		final Path file = directory.resolve("sodokus.sdk");
+		try (PuzzleFileWriter writer = new PuzzleFileWriter(file)) {
+			for (final Sodoku sodoku:sodokus)
+				writer.write(sodoku);
+		}
+		assertEquals(PuzzleFile.HEADER_SIZE + (long) COUNT * PuzzleFile.RECORD_SIZE, Files.size(file));
+
+		try (PuzzleFileReader reader = new PuzzleFileReader(file)) {
+			assertEquals(COUNT, reader.getCount());
+			for (int i = 0; i < COUNT; i++) {
+				final Sodoku sodoku = sodokus.get(i);
+				if (sodoku instanceof SolvableSodoku) {
+					final SolvableSodoku puzzle = (SolvableSodoku) sodoku;
+					assertEquals(TestGrids.digits(puzzle.getSolutionGrid()), TestGrids.digits(reader.getSolution(i)));
+					assertEquals(TestGrids.digits(puzzle.getGivenGrid()), TestGrids.digits(reader.getPuzzle(i)));
+					assertEquals(puzzle.getRating().getDifficulty(), reader.getDifficulty(i));
+				} else {
+					assertEquals(TestGrids.digits(sodoku.getGridCopy()), TestGrids.digits(reader.getSolution(i)));
+					assertEquals(TestGrids.digits(sodoku.getGridCopy()), TestGrids.digits(reader.getPuzzle(i)));
+					assertNull(reader.getDifficulty(i));
+				}
+			}
+			assertThrows(IndexOutOfBoundsException.class, () -> reader.getSolution(COUNT));
+		}
+	}
+
+	/**
+	 * Files without the header of the format are refused.
+	 * @throws IOException if the file can't be written
+	 */
+	@Test
+	void refusesOtherFiles() throws IOException {
+		final Path file = Files.write(directory.resolve("other.txt"), new byte[PuzzleFile.HEADER_SIZE]);
+		assertThrows(IOException.class, () -> new PuzzleFileReader(file).close());
+	}
+}
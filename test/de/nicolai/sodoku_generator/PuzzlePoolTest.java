@@ -0,0 +1,109 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that PuzzlePool refills its pools and hands out puzzles of their difficulty.
+ * @author Nicolai
+ *
+ */
+class PuzzlePoolTest {
+
+	/**
+	 * Count of puzzles per difficulty.
+	 */
+	private static final int CAPACITY = 2;
+	/**
+	 * Max time to wait for the workers, in seconds.
+	 */
+	private static final long TIMEOUT_SECONDS = 30;
+
+	/**
+	 * The pool under test.
+	 */
+	private final PuzzlePool pool = new PuzzlePool(CAPACITY, 1, BacktrackingEngine::new);
+
+	/**
+	 * Stops the workers of the pool.
+	 */
+	@AfterEach
+	void stopPool() {
+		pool.stop();
+	}
+
+	/**
+	 * Taking a puzzle waits until a worker created one, and times out without workers.
+	 * @throws Exception if the waiting thread fails
+	 */
+	@Test
+	void takeWaitsForPuzzle() throws Exception {
+		assertNull(pool.poll(Difficulty.EASY, 10, TimeUnit.MILLISECONDS));
+		final CompletableFuture<SolvableSodoku> taken = CompletableFuture.supplyAsync(() -> {
+			try {
+				return pool.poll(Difficulty.EASY, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		});
+		Thread.sleep(50);
+		assertFalse(taken.isDone());
+		pool.start();
+		final SolvableSodoku puzzle = taken.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		assertNotNull(puzzle);
+		assertEquals(Difficulty.EASY, puzzle.getRating().getDifficulty());
+		assertTrue(new DancingLinks().hasUniqueSolution(puzzle.getGivenGrid()));
+	}
+
+	/**
+	 * Taken puzzles are replaced, and every pool only holds puzzles of its difficulty.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	void refillsTakenPuzzles() throws InterruptedException {
+		pool.start();
+		awaitFull(Difficulty.EASY);
+		for (int i = 0; i < CAPACITY; i++)
+			assertEquals(Difficulty.EASY, pool.poll(Difficulty.EASY, 0, TimeUnit.SECONDS).getRating().getDifficulty());
+		assertEquals(0, pool.size(Difficulty.EASY));
+		awaitFull(Difficulty.EASY);
+		for (final Difficulty difficulty:Difficulty.values()) {
+			final SolvableSodoku puzzle = pool.poll(difficulty, 0, TimeUnit.SECONDS);
+			if (puzzle != null)
+				assertEquals(difficulty, puzzle.getRating().getDifficulty());
+		}
+	}
+
+	/**
+	 * The workers aim at the emptiest pool, so the pools of every difficulty are filled.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	void fillsEveryPool() throws InterruptedException {
+		pool.start();
+		for (final Difficulty difficulty:Difficulty.values())
+			awaitFull(difficulty);
+	}
+
+	/**
+	 * Waits until the pool of the difficulty is full.
+	 * @param difficulty the difficulty of the pool
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void awaitFull(final Difficulty difficulty) throws InterruptedException {
+		final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (pool.size(difficulty) < CAPACITY && System.nanoTime() < end)
+			Thread.sleep(10);
+		assertEquals(CAPACITY, pool.size(difficulty));
+	}
+}
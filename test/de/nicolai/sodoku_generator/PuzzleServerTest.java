@@ -0,0 +1,219 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the responses of PuzzleServer on an ephemeral port.
+ * @author Nicolai
+ *
+ */
+class PuzzleServerTest {
+
+	/**
+	 * Count of requests sent at the same time, more than the handler threads without virtual threads.
+	 */
+	private static final int CONCURRENT_REQUESTS = 40;
+	/**
+	 * Count of given elements of a grid too sparse for a hint.
+	 */
+	private static final int SPARSE_CLUES = 16;
+	/**
+	 * Status of a successful request.
+	 */
+	private static final int OK = 200;
+	/**
+	 * Status of a request with wrong parameters.
+	 */
+	private static final int BAD_REQUEST = 400;
+	/**
+	 * Status of a request with a wrong method.
+	 */
+	private static final int METHOD_NOT_ALLOWED = 405;
+
+	/**
+	 * Sends the requests.
+	 */
+	private final HttpClient client = HttpClient.newHttpClient();
+	/**
+	 * The server under test.
+	 */
+	private PuzzleServer server;
+
+	/**
+	 * Starts the server on a free port.
+	 * @throws IOException if the server can't be created
+	 */
+	@BeforeEach
+	void startServer() throws IOException {
+		server = new PuzzleServer(new PuzzlePool(2, 1, BacktrackingEngine::new), 0);
+		server.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@AfterEach
+	void stopServer() {
+		server.stop();
+	}
+
+	/**
+	 * Puzzles are served in all formats.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void servesPuzzles() throws Exception {
+		final HttpResponse<String> json = get("/puzzle?difficulty=easy");
+		assertEquals(OK, json.statusCode());
+		assertTrue(json.body().startsWith("{\"number\":1,\"difficulty\":\"EASY\""), json.body());
+		assertTrue(json.body().contains("\"solution\":\""), json.body());
+
+		final HttpResponse<byte[]> compact = client.send(request("/puzzle?difficulty=EASY&format=compact").build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(OK, compact.statusCode());
+		assertEquals(PuzzleFile.RECORD_SIZE, compact.body().length);
+
+		final HttpResponse<String> text = get("/puzzle?format=text");
+		assertEquals(OK, text.statusCode());
+		assertTrue(text.body().contains("Sodoku number 3"), text.body());
+	}
+
+	/**
+	 * Requests waiting for puzzles at the same time all get their own puzzle,
+	 * on virtual threads if the JVM has them.
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void servesConcurrentRequests() throws Exception {
+		assertEquals(Runtime.version().feature() >= 21, server.usesVirtualThreads());
+		final List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+		for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+			responses.add(client.sendAsync(request("/puzzle?difficulty=easy").build(),
+					HttpResponse.BodyHandlers.ofString()));
+		final Set<String> puzzles = new HashSet<>();
+		for (final CompletableFuture<HttpResponse<String>> response:responses) {
+			assertEquals(OK, response.get().statusCode());
+			puzzles.add(response.get().body().replaceFirst("\\{\"number\":\\d+,", ""));
+		}
+		assertEquals(CONCURRENT_REQUESTS, puzzles.size());
+	}
+
+	/**
+	 * The pool sizes are served for every difficulty.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void servesPoolSizes() throws Exception {
+		final HttpResponse<String> response = get("/pool");
+		assertEquals(OK, response.statusCode());
+		for (final Difficulty difficulty:Difficulty.values())
+			assertTrue(response.body().contains("\"" + difficulty + "\":"), response.body());
+	}
+
+	/**
+	 * Hints are given for the empty fields of a grid.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void servesHints() throws Exception {
+		final HttpResponse<String> response = get("/hint?grid=" + TestGrids.PUZZLE);
+		assertEquals(OK, response.statusCode());
+		assertTrue(response.body().startsWith("{\"line\":"), response.body());
+		assertEquals("null\n", get("/hint?grid=" + TestGrids.SOLUTION).body());
+	}
+
+	/**
+	 * Grids which are too short, contain other characters than digits or break the rules get no hint.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void refusesInvalidGrids() throws Exception {
+		assertEquals(BAD_REQUEST, get("/hint").statusCode());
+		assertEquals(BAD_REQUEST, get("/hint?grid=" + TestGrids.PUZZLE.substring(1)).statusCode());
+		assertEquals(BAD_REQUEST, get("/hint?grid=x" + TestGrids.PUZZLE.substring(1)).statusCode());
+		assertEquals(BAD_REQUEST, get("/hint?grid=55" + TestGrids.PUZZLE.substring(2)).statusCode());
+	}
+
+	/**
+	 * Grids with more than one solution get no hint, as it could be wrong for the solution of the player.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void refusesGridsWithoutUniqueSolution() throws Exception {
+		assertEquals(BAD_REQUEST, get("/hint?grid=" + TestGrids.TWO_SOLUTIONS).statusCode());
+		assertEquals(BAD_REQUEST, get("/hint?grid=" + TestGrids.EMPTY).statusCode());
+
+		final char[] sparse = TestGrids.PUZZLE.toCharArray();
+		int clues = 0;
+		for (int i = 0; i < sparse.length; i++)
+			if (sparse[i] != '0' && ++clues > SPARSE_CLUES)
+				sparse[i] = '0';
+		final HttpResponse<String> response = get("/hint?grid=" + new String(sparse));
+		assertEquals(BAD_REQUEST, response.statusCode());
+		assertTrue(response.body().contains("fewer than 17 given elements"), response.body());
+	}
+
+	/**
+	 * Hints requested at the same time wait for the single hint slot of the pool, and all of them are given.
+	 * @throws Exception if a request fails
+	 */
+	@Test
+	void servesConcurrentHints() throws Exception {
+		final List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+		for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+			responses.add(client.sendAsync(request("/hint?grid=" + TestGrids.PUZZLE).build(),
+					HttpResponse.BodyHandlers.ofString()));
+		final String hint = get("/hint?grid=" + TestGrids.PUZZLE).body();
+		for (final CompletableFuture<HttpResponse<String>> response:responses) {
+			assertEquals(OK, response.get().statusCode());
+			assertEquals(hint, response.get().body());
+		}
+	}
+
+	/**
+	 * Unknown difficulties and formats and other methods than GET are refused.
+	 * @throws Exception if the request fails
+	 */
+	@Test
+	void refusesWrongRequests() throws Exception {
+		assertEquals(BAD_REQUEST, get("/puzzle?difficulty=impossible").statusCode());
+		assertEquals(BAD_REQUEST, get("/puzzle?format=xml").statusCode());
+		assertEquals(METHOD_NOT_ALLOWED, client.send(request("/puzzle").POST(HttpRequest.BodyPublishers.noBody())
+				.build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+	}
+
+	/**
+	 * Sends a GET request to the server.
+	 * @param path the path and query of the request
+	 * @return the response with the body as text
+	 * @throws Exception if the request fails
+	 */
+	private HttpResponse<String> get(final String path) throws Exception {
+		return client.send(request(path).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	/**
+	 * Creates a request to the server.
+	 * @param path the path and query of the request
+	 * @return the request builder
+	 */
+	private HttpRequest.Builder request(final String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+	}
+}
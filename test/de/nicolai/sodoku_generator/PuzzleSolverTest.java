@@ -0,0 +1,83 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that PuzzleSolver writes one result line per input line, in the order of the input.
+ * @author Nicolai
+ *
+ */
+class PuzzleSolverTest {
+
+	/**
+	 * A grid without a solution, which doesn't break the rules:
+	 * the last field of the first line can only be 9, which is already in its row.
+	 */
+	private static final String UNSOLVABLE = "123456780" + "000000009" + "0".repeat(63);
+	/**
+	 * Count of copies of the input for the test with several chunks of 1 MiB.
+	 */
+	private static final int COPIES = 6_000;
+
+	/**
+	 * Every kind of line gets its result, empty lines and CRLF line ends included.
+	 * @throws IOException never, as only memory is used
+	 */
+	@Test
+	void answersEveryLine() throws IOException {
+		final PuzzleSolver solver = new PuzzleSolver(1);
+		final String output = solve(solver, TestGrids.PUZZLE + "\n"
+				+ TestGrids.PUZZLE.replace('0', '.') + "\r\n"
+				+ TestGrids.TWO_SOLUTIONS + "\n"
+				+ UNSOLVABLE + "\n"
+				+ "\n"
+				+ "12345\n"
+				+ TestGrids.PUZZLE.replace('0', 'x') + "\n"
+				+ TestGrids.PUZZLE);
+		assertEquals(TestGrids.SOLUTION + "\n"
+				+ TestGrids.SOLUTION + "\n"
+				+ "MULTIPLE\n"
+				+ "UNSOLVABLE\n"
+				+ "INVALID\n"
+				+ "INVALID\n"
+				+ "INVALID\n"
+				+ TestGrids.SOLUTION + "\n", output);
+		assertEquals(3, solver.getSolvedCount());
+		assertEquals(1, solver.getMultipleCount());
+		assertEquals(1, solver.getUnsolvableCount());
+		assertEquals(3, solver.getInvalidCount());
+	}
+
+	/**
+	 * Several threads write the results of many chunks in the order of the input.
+	 * @throws IOException never, as only memory is used
+	 */
+	@Test
+	void keepsOrderWithThreads() throws IOException {
+		final String lines = TestGrids.PUZZLE + "\n\n" + TestGrids.TWO_SOLUTIONS + "\n" + UNSOLVABLE + "\n";
+		final String expected = TestGrids.SOLUTION + "\nINVALID\nMULTIPLE\nUNSOLVABLE\n";
+		final String output = solve(new PuzzleSolver(4), lines.repeat(COPIES));
+		assertEquals(expected.repeat(COPIES), output);
+	}
+
+	/**
+	 * Solves the passed input.
+	 * @param solver the solver to use
+	 * @param input the lines of the puzzles
+	 * @return the result lines
+	 * @throws IOException never, as only memory is used
+	 */
+	private static String solve(final PuzzleSolver solver, final String input) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		solver.solve(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))), out);
+		return out.toString(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,166 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the numbering and order of sodokus generated by SodokuGenerator,
+ * and that seeded generators create the same sodokus, no matter how many threads they use.
+ * @author Nicolai
+ *
+ */
+class SodokuGeneratorTest {
+
+	/**
+	 * Seed of the seeded generators.
+	 */
+	private static final long SEED = 42;
+	/**
+	 * Count of sodokus generated per test.
+	 */
+	private static final int COUNT = 50;
+	/**
+	 * Count of threads used for parallel generation.
+	 */
+	private static final int THREADS = 4;
+
+	/**
+	 * Sodokus generated by multiple threads are numbered in order, following the ones generated before.
+	 */
+	@Test
+	void numbersParallelSodokusInOrder() {
+		final SodokuGenerator generator = new SodokuGenerator();
+		generator.generateSodoku();
+		generator.generateSodokus(COUNT, THREADS);
+		final List<String> sodokus = new ArrayList<>();
+		generator.print(sodokus::add);
+		assertEquals(COUNT + 1, sodokus.size());
+		for (int i = 0; i < sodokus.size(); i++)
+			assertTrue(sodokus.get(i).startsWith("Sodoku number " + (i + 1) + ":\n"), sodokus.get(i));
+	}
+
+	/**
+	 * Streamed sodokus are passed on in order, and aren't kept by the generator.
+	 */
+	@Test
+	void streamsSodokusInOrder() {
+		final SodokuGenerator generator = new SodokuGenerator();
+		final List<String> sodokus = new ArrayList<>();
+		generator.generateSodokus(COUNT, THREADS, sodokus::add);
+		assertEquals(COUNT, sodokus.size());
+		for (int i = 0; i < sodokus.size(); i++)
+			assertTrue(sodokus.get(i).startsWith("Sodoku number " + (i + 1) + ":\n"), sodokus.get(i));
+		assertEquals("", generator.toString());
+	}
+
+	/**
+	 * Complete sodokus are the same for 1 and THREADS threads.
+	 */
+	@Test
+	void generatesSameSodokusForAnyThreads() {
+		assertEquals(generate(BacktrackingEngine::new, 1, generator -> { }),
+				generate(BacktrackingEngine::new, THREADS, generator -> { }));
+	}
+
+	/**
+	 * The line sampling engine gives the same sodokus for 1 and THREADS threads too.
+	 */
+	@Test
+	void samplesSameSodokusForAnyThreads() {
+		assertEquals(generate(LineSamplingEngine::new, 1, generator -> { }),
+				generate(LineSamplingEngine::new, THREADS, generator -> { }));
+	}
+
+	/**
+	 * Puzzles, transforms and skipped duplicates don't depend on the count of threads.
+	 */
+	@Test
+	void generatesSamePuzzlesForAnyThreads() {
+		final Consumer<SodokuGenerator> options = generator -> {
+			generator.setPuzzleProbability(50);
+			generator.setTransforms(3);
+			generator.setSkipDuplicates(true);
+		};
+		assertEquals(generate(BacktrackingEngine::new, 1, options),
+				generate(BacktrackingEngine::new, THREADS, options));
+	}
+
+	/**
+	 * A sodoku or puzzle generated on its own equals the one with its number in a run.
+	 */
+	@Test
+	void generatesSodokuAtNumber() {
+		final List<String> sodokus = generate(BacktrackingEngine::new, 1, generator -> { });
+		final List<String> puzzles = generate(BacktrackingEngine::new, 1,
+				generator -> generator.setPuzzleProbability(50));
+		for (final int number:new int[] {1, 7, COUNT}) {
+			assertEquals(sodokus.get(number - 1),
+					SodokuGenerator.puzzleAt(SEED, number).getStringRepresentation(number));
+			assertEquals(puzzles.get(number - 1),
+					SodokuGenerator.puzzleAt(SEED, number, 50).getStringRepresentation(number));
+		}
+	}
+
+	/**
+	 * A run starting at a later number continues the sodokus of a run starting at 1.
+	 */
+	@Test
+	void continuesAtFirstNumber() {
+		final List<String> sodokus = generate(BacktrackingEngine::new, THREADS, generator -> { });
+		final int first = COUNT / 2 + 1;
+		assertEquals(sodokus.subList(first - 1, COUNT), generate(BacktrackingEngine::new, THREADS,
+				generator -> generator.setFirstNumber(first)).subList(0, COUNT - first + 1));
+	}
+
+	/**
+	 * Skipping duplicates leaves out the transforms and their numbers, until count sodokus are passed on.
+	 */
+	@Test
+	void skipsTransforms() {
+		final List<String> sodokus = generate(BacktrackingEngine::new, THREADS, generator -> {
+			generator.setTransforms(1);
+			generator.setSkipDuplicates(true);
+		});
+		assertEquals(COUNT, sodokus.size());
+		// one sodoku of every group of two numbers, number 1 shares its base with number 0
+		for (int i = 0; i < sodokus.size(); i++)
+			assertTrue(sodokus.get(i).startsWith("Sodoku number " + Math.max(1, 2 * i) + ":\n"), sodokus.get(i));
+	}
+
+	/**
+	 * Only searched sodokus are counted as grids by the stats, not their transforms.
+	 */
+	@Test
+	void recordsOnlySearchedGrids() {
+		final int transforms = 3;
+		final GeneratorStats stats = GeneratorStats.get();
+		stats.reset();
+		generate(BacktrackingEngine::new, 1, generator -> generator.setTransforms(transforms));
+		// one base for every group of transforms + 1 numbers, number 1 is in the group of number 0
+		assertEquals(COUNT / (transforms + 1) + 1, stats.getGridCount());
+		stats.reset();
+	}
+
+	/**
+	 * Generates COUNT sodokus with a seeded generator.
+	 * @param engineFactory creates the engine of every thread
+	 * @param threads count of threads to use
+	 * @param options sets the options of the generator
+	 * @return the text representations of the sodokus in order
+	 */
+	private static List<String> generate(final Supplier<GridEngine> engineFactory, final int threads,
+			final Consumer<SodokuGenerator> options) {
+		final SodokuGenerator generator = new SodokuGenerator(engineFactory, SEED);
+		options.accept(generator);
+		final List<String> sodokus = new ArrayList<>(COUNT);
+		generator.generateSodokus(COUNT, threads, sodokus::add);
+		return sodokus;
+	}
+}
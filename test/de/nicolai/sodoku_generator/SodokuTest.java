@@ -0,0 +1,75 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests adding lines to a Sodoku.
+ * @author Nicolai
+ *
+ */
+class SodokuTest {
+
+	/**
+	 * The lines of a solution are added one by one, until the sodoku is complete.
+	 */
+	@Test
+	void addsLinesOfSolution() {
+		final Sodoku sodoku = new Sodoku();
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
+			assertFalse(sodoku.isComplete());
+			assertTrue(sodoku.addLine(line(i)));
+		}
+		assertTrue(sodoku.isComplete());
+		assertFalse(sodoku.addLine(line(0)));
+		assertEquals(TestGrids.SOLUTION, TestGrids.digits(sodoku.getGridCopy()));
+		TestGrids.assertValid(sodoku);
+	}
+
+	/**
+	 * A line breaking the rules is refused, and its elements placed before the conflict are removed again.
+	 */
+	@Test
+	void rollsBackConflictingLine() {
+		final Sodoku sodoku = new Sodoku();
+		assertTrue(sodoku.addLine(line(0)));
+		final String[] conflicting = line(1);
+		conflicting[8] = conflicting[0]; // element twice in the line
+		assertFalse(sodoku.addLine(conflicting));
+		assertFalse(sodoku.addLine(line(0))); // elements twice in the rows
+		assertEquals(SodokuGenerator.LINE_LENGTH, sodoku.getGridCopy().getFilledCount());
+		assertFalse(sodoku.addLine("1", "2"));
+		assertTrue(sodoku.addLine(line(1)));
+	}
+
+	/**
+	 * Removing the last lines leaves the lines before, and the removed lines can be added again.
+	 */
+	@Test
+	void removesLastLines() {
+		final Sodoku sodoku = new Sodoku();
+		assertFalse(sodoku.removeLastLine());
+		for (int i = 0; i < SodokuGenerator.SQUARE_STEPS; i++)
+			assertTrue(sodoku.addLine(line(i)));
+		assertEquals(SodokuGenerator.SQUARE_STEPS, sodoku.getLineCount());
+		assertTrue(sodoku.removeLastLine());
+		assertTrue(sodoku.removeLastLine());
+		assertEquals(1, sodoku.getLineCount());
+		assertEquals(SodokuGenerator.LINE_LENGTH, sodoku.getGridCopy().getFilledCount());
+		assertTrue(sodoku.addLine(line(1)));
+		assertEquals(2, sodoku.getLineCount());
+	}
+
+	/**
+	 * Returns a line of TestGrids.SOLUTION.
+	 * @param index the index of the line
+	 * @return the elements of the line
+	 */
+	private static String[] line(final int index) {
+		return TestGrids.SOLUTION.substring(index * SodokuGenerator.LINE_LENGTH,
+				(index + 1) * SodokuGenerator.LINE_LENGTH).split("");
+	}
+}
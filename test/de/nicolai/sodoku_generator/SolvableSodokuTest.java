@@ -0,0 +1,179 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the puzzles carved out of complete sodokus by SolvableSodoku.
+ * @author Nicolai
+ *
+ */
+class SolvableSodokuTest {
+
+	/**
+	 * Count of puzzles created per test.
+	 */
+	private static final int PUZZLES = 10;
+	/**
+	 * Probability of a field to be empty, in percent.
+	 */
+	private static final double EMPTY_PROBABILITY = 60;
+
+	/**
+	 * Creates the complete sodokus.
+	 */
+	private final BacktrackingEngine engine = new BacktrackingEngine();
+	/**
+	 * Checks the solutions of the puzzles.
+	 */
+	private final DancingLinks solver = new DancingLinks();
+
+	/**
+	 * Puzzles carved for a unique solution keep it, and their given elements are the ones of the solution.
+	 */
+	@Test
+	void carvesUniquePuzzles() {
+		final SplittableRandom random = new SplittableRandom(11);
+		for (int i = 0; i < PUZZLES; i++) {
+			final Sodoku sodoku = engine.generate(random);
+			final SolvableSodoku puzzle = new SolvableSodoku(sodoku, EMPTY_PROBABILITY, true, random);
+			final Grid solution = sodoku.getGridCopy();
+			final Grid given = new Grid();
+			for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+				for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++) {
+					assertEquals(Grid.toString(solution.get(line, row)), puzzle.getSolution(line, row));
+					final String value = puzzle.getValue(line, row);
+					if (value != null) {
+						assertEquals(puzzle.getSolution(line, row), value);
+						given.set(line, row, Grid.toElement(value));
+					}
+				}
+			assertTrue(given.getFilledCount() < Grid.FIELD_COUNT);
+			assertTrue(solver.hasUniqueSolution(given));
+		}
+	}
+
+	/**
+	 * The same random carves the same puzzle.
+	 */
+	@Test
+	void carvesSamePuzzleWithSameRandom() {
+		for (int i = 0; i < PUZZLES; i++) {
+			final Sodoku sodoku = engine.generate(new SplittableRandom(i));
+			final SolvableSodoku first = new SolvableSodoku(sodoku, EMPTY_PROBABILITY, true,
+					new SplittableRandom(i));
+			final SolvableSodoku second = new SolvableSodoku(sodoku, EMPTY_PROBABILITY, true,
+					new SplittableRandom(i));
+			assertEquals(TestGrids.digits(first.getGivenGrid()), TestGrids.digits(second.getGivenGrid()));
+		}
+	}
+
+	/**
+	 * The same random carves the same puzzle, whether the uniqueness is checked by a parallel counter or not.
+	 */
+	@Test
+	void carvesSamePuzzleWithCounter() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final ParallelSolutionCounter counter = new ParallelSolutionCounter(pool);
+			for (int i = 0; i < PUZZLES; i++) {
+				final Sodoku sodoku = engine.generate(new SplittableRandom(i));
+				final SolvableSodoku sequential = new SolvableSodoku(sodoku, EMPTY_PROBABILITY, true,
+						new SplittableRandom(i), null);
+				final SolvableSodoku parallel = new SolvableSodoku(sodoku, EMPTY_PROBABILITY, true,
+						new SplittableRandom(i), counter);
+				assertEquals(TestGrids.digits(sequential.getGivenGrid()), TestGrids.digits(parallel.getGivenGrid()));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * The solved state and the conflicts follow overwritten and cleared values.
+	 */
+	@Test
+	void tracksSolvedStateAndConflicts() {
+		final SplittableRandom random = new SplittableRandom(17);
+		final SolvableSodoku puzzle = new SolvableSodoku(engine.generate(random), EMPTY_PROBABILITY, false, random);
+		int openLine = -1;
+		int openRow = -1;
+		for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+			for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++)
+				if (puzzle.getValue(line, row) == null) {
+					openLine = line;
+					openRow = row;
+				} else {
+					assertFalse(puzzle.trySetValue(line, row, null)); // given fields can't be changed
+				}
+		assertTrue(openLine >= 0);
+		assertFalse(puzzle.isSolved());
+
+		for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+			for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++)
+				if (puzzle.getValue(line, row) == null)
+					assertTrue(puzzle.trySetValue(line, row, puzzle.getSolution(line, row)));
+		assertTrue(puzzle.isSolved());
+
+		// overwrite with the element of the neighbour field in the line
+		final int otherRow = (openRow + 1) % SodokuGenerator.LINE_LENGTH;
+		assertTrue(puzzle.trySetValue(openLine, openRow, puzzle.getSolution(openLine, otherRow)));
+		assertFalse(puzzle.isSolved());
+		assertTrue(puzzle.isConflicting(openLine, openRow));
+		assertTrue(puzzle.isConflicting(openLine, otherRow));
+
+		assertTrue(puzzle.trySetValue(openLine, openRow, null));
+		assertFalse(puzzle.isSolved());
+		assertFalse(puzzle.isConflicting(openLine, openRow));
+		assertFalse(puzzle.isConflicting(openLine, otherRow));
+
+		assertTrue(puzzle.trySetValue(openLine, openRow, puzzle.getSolution(openLine, openRow)));
+		assertTrue(puzzle.isSolved());
+		for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+			for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++)
+				assertFalse(puzzle.isConflicting(line, row));
+	}
+
+	/**
+	 * No given element of a minimal puzzle can be removed without losing the unique solution.
+	 */
+	@Test
+	void createsMinimalPuzzles() {
+		final SplittableRandom random = new SplittableRandom(13);
+		for (int i = 0; i < PUZZLES; i++) {
+			final SolvableSodoku puzzle = SolvableSodoku.createMinimal(engine.generate(random), random);
+			assertGivenFromSolution(puzzle);
+			final Grid given = puzzle.getGivenGrid();
+			assertTrue(solver.hasUniqueSolution(given));
+			for (int field = 0; field < Grid.FIELD_COUNT; field++) {
+				final int line = field / SodokuGenerator.LINE_LENGTH;
+				final int row = field % SodokuGenerator.LINE_LENGTH;
+				final int element = given.get(line, row);
+				if (element == Grid.EMPTY)
+					continue;
+				given.remove(line, row);
+				assertFalse(solver.hasUniqueSolution(given));
+				given.set(line, row, element);
+			}
+		}
+	}
+
+	/**
+	 * Checks that every given element of the puzzle is the element of its solution.
+	 * @param puzzle the puzzle to check
+	 */
+	private static void assertGivenFromSolution(final SolvableSodoku puzzle) {
+		final Grid given = puzzle.getGivenGrid();
+		final Grid solution = puzzle.getSolutionGrid();
+		for (int line = 0; line < SodokuGenerator.LINE_COUNT; line++)
+			for (int row = 0; row < SodokuGenerator.LINE_LENGTH; row++)
+				if (given.get(line, row) != Grid.EMPTY)
+					assertEquals(solution.get(line, row), given.get(line, row));
+	}
+}
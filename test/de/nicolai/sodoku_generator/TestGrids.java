@@ -0,0 +1,110 @@
+package de.nicolai.sodoku_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks and conversions of sodokus shared by the tests.
+ * @author Nicolai
+ *
+ */
+final class TestGrids {
+
+	// Constants
+
+	/**
+	 * A puzzle with a unique solution, line by line, 0 for empty fields.
+	 */
+	static final String PUZZLE =
+			"530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+	/**
+	 * The solution of PUZZLE.
+	 */
+	static final String SOLUTION =
+			"534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+	/**
+	 * SOLUTION with the 1 and 3 of lines 3 and 4, rows 5 and 8 removed, which can be filled in two ways.
+	 */
+	static final String TWO_SOLUTIONS =
+			"534678912672195348198342567859760420426850790713924856961537284287419635345286179";
+	/**
+	 * A grid without any element.
+	 */
+	static final String EMPTY = "0".repeat(Grid.FIELD_COUNT);
+	/**
+	 * Bitmask containing all elements.
+	 */
+	private static final int ALL_ELEMENTS = (1 << SodokuGenerator.LINE_LENGTH) - 1;
+
+	private TestGrids() { }
+
+	// static Methods
+
+	/**
+	 * Creates a grid out of 81 digits, without checking the rules,
+	 * so grids breaking them can be created too.
+	 * @param digits the elements line by line, 0 for empty fields
+	 * @return the created grid
+	 */
+	static Grid parse(final String digits) {
+		final Grid grid = new Grid();
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			grid.set(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH, digits.charAt(i) - '0');
+		return grid;
+	}
+
+	/**
+	 * Creates the 81 digits of a grid.
+	 * @param grid the grid
+	 * @return the elements line by line, 0 for empty fields
+	 */
+	static String digits(final Grid grid) {
+		final StringBuilder sBuilder = new StringBuilder(Grid.FIELD_COUNT);
+		for (int i = 0; i < Grid.FIELD_COUNT; i++)
+			sBuilder.append(grid.get(i / SodokuGenerator.LINE_LENGTH, i % SodokuGenerator.LINE_LENGTH));
+		return sBuilder.toString();
+	}
+
+	/**
+	 * Reads the elements of a sodoku out of its text representation.
+	 * @param sodoku the sodoku
+	 * @return the elements line by line
+	 */
+	static int[][] elements(final Sodoku sodoku) {
+		final String[] lines = sodoku.toString().split("\n");
+		assertEquals(SodokuGenerator.LINE_COUNT, lines.length);
+		final int[][] elements = new int[SodokuGenerator.LINE_COUNT][];
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
+			final String[] fields = lines[i].split(", ");
+			assertEquals(SodokuGenerator.LINE_LENGTH, fields.length);
+			elements[i] = new int[SodokuGenerator.LINE_LENGTH];
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++)
+				elements[i][j] = Integer.parseInt(fields[j]);
+		}
+		return elements;
+	}
+
+	/**
+	 * Checks that a sodoku is complete and every line, row and square contains every element once.
+	 * @param sodoku the sodoku to check
+	 */
+	static void assertValid(final Sodoku sodoku) {
+		assertTrue(sodoku.isComplete());
+		final int[][] elements = elements(sodoku);
+		for (int i = 0; i < SodokuGenerator.LINE_COUNT; i++) {
+			int line = 0;
+			int row = 0;
+			int square = 0;
+			for (int j = 0; j < SodokuGenerator.LINE_LENGTH; j++) {
+				line |= 1 << (elements[i][j] - 1);
+				row |= 1 << (elements[j][i] - 1);
+				square |= 1 << (elements[i / SodokuGenerator.SQUARE_STEPS * SodokuGenerator.SQUARE_STEPS
+						+ j / SodokuGenerator.SQUARE_STEPS][i % SodokuGenerator.SQUARE_STEPS
+						* SodokuGenerator.SQUARE_STEPS + j % SodokuGenerator.SQUARE_STEPS] - 1);
+			}
+			assertEquals(ALL_ELEMENTS, line, "line " + i);
+			assertEquals(ALL_ELEMENTS, row, "row " + i);
+			assertEquals(ALL_ELEMENTS, square, "square " + i);
+		}
+	}
+}